@@ -0,0 +1,47 @@
+package Part1;
+
+import Utility.RenderMode;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the IMMEDIATE and RETAINED render modes of CenterPane on a resize and on a color change.
+ * As in RenderModeBenchmark only the work on the JavaFX thread is timed, the pane is not in a scene.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CenterPaneBenchmark {
+
+    @Param({"IMMEDIATE", "RETAINED"})
+    RenderMode mode;
+
+    CenterPane pane;
+    int call;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pane = new CenterPane(Color.BLACK);
+        pane.setRenderMode(mode);
+        pane.resize(600, 400);
+        pane.layoutChildren();
+    }
+
+    @Benchmark
+    public CenterPane resize() {
+        pane.resize((call++ & 1) == 0 ? 600 : 640, 400);
+        pane.layoutChildren(); //not in a scene, so the draw runs right away.
+        return pane;
+    }
+
+    @Benchmark
+    public Color recolor() {
+        pane.setCenterPaneColor((call++ & 1) == 0 ? Color.CORAL : Color.TEAL);
+        return pane.getCenterPaneColor();
+    }
+}
@@ -0,0 +1,42 @@
+package Part2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times RowCell.setColor, which picks a widget's color from its width after every layout.
+ * The widths cycle through every color band, from min to max width.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorBenchmark {
+
+    private static final double[] WIDTHS = {100, 150, 200, 250, 300}; //min, between, pref, between, max.
+
+    RowLayoutPane.RowCell cell;
+    int call;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Widget w = new WidgetStore().add(100, 100, 300, 300, 200, 200);
+        cell = new RowLayoutPane.RowCell(w); //not in a pane, so changing the widget notifies nothing.
+    }
+
+    @Benchmark
+    public Object setColor() {
+        Widget w = cell.getWidget();
+        w.setActualSize(WIDTHS[call++ % WIDTHS.length], w.getHeight());
+        cell.setColor();
+        return w.getWidgetColor();
+    }
+
+    @Benchmark
+    public Object colorFor() {
+        return LayoutSnapshot.colorFor(WIDTHS[call++ % WIDTHS.length], 100, 200, 300);
+    }
+}
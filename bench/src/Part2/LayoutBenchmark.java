@@ -0,0 +1,77 @@
+package Part2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a full RowLayoutPane layout and paint when the pane grows and when it shrinks.
+ * Each call alternates between two widths so there is always something to solve and redraw. The far width of each
+ * pair saturates part of the widgets, which exercises the solver's sweep past min and max widths.
+ * With layoutCacheBytes=0 every call solves. With the cache large enough for both layouts every call after the first
+ * two is a hit, so the difference between the two is what a hit saves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutBenchmark {
+
+    private static final double HEIGHT = 400;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int widgets;
+
+    @Param({"0", "268435456"})
+    long layoutCacheBytes;
+
+    RowLayoutPane pane;
+    double[] growWidths, shrinkWidths;
+    int call;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WidgetStore store = new WidgetStore(widgets);
+        List<Widget> list = new ArrayList<>(widgets);
+        for (int i = 0; i < widgets; i++)
+            list.add(addWidget(store, i));
+        pane = new RowLayoutPane();
+        pane.setLayoutCacheSize(layoutCacheBytes);
+        pane.addWidgets(list);
+
+        double min = pane.totalMinWidth(), pref = pane.totalPrefWidth(), max = pane.totalMaxWidth();
+        growWidths = new double[] {pref + (max - pref) * 0.4, pref + (max - pref) * 0.8};
+        shrinkWidths = new double[] {pref - (pref - min) * 0.4, pref - (pref - min) * 0.8};
+        layout(pref);
+    }
+
+    /**
+     * Adds a widget with constraints that vary with its index, so widgets saturate at different row widths.
+     */
+    static Widget addWidget(WidgetStore store, int i) {
+        double min = 50 + (i % 7) * 10;
+        double pref = min + 50 + (i % 5) * 10;
+        double max = pref + 50 + (i % 3) * 20;
+        return store.add(min, 100, max, 300, pref, 200);
+    }
+
+    private double layout(double width) {
+        pane.resize(width, HEIGHT);
+        pane.layoutChildren(); //not in a scene, so the layout and paint run right away.
+        return pane.totalActualWidth();
+    }
+
+    @Benchmark
+    public double grow() {
+        return layout(growWidths[call++ & 1]);
+    }
+
+    @Benchmark
+    public double shrink() {
+        return layout(shrinkWidths[call++ & 1]);
+    }
+}
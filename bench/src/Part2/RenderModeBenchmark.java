@@ -0,0 +1,69 @@
+package Part2;
+
+import Utility.RenderMode;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the IMMEDIATE and RETAINED render modes of RowLayoutPane across widget counts, to find where one overtakes
+ * the other. resize relayouts and repaints every cell, recolor changes one widget so only its cell is repainted.
+ * The pane is not in a scene, so this times the work on the JavaFX thread: recording canvas commands in immediate
+ * mode, updating nodes in retained mode. The render thread's share, rasterizing the canvas or the dirty nodes, is not
+ * included, compare the Paint events of a Flight Recording of the running app for that.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderModeBenchmark {
+
+    private static final double HEIGHT = 400;
+
+    @Param({"10", "100", "1000", "10000"})
+    int widgets;
+
+    @Param({"IMMEDIATE", "RETAINED"})
+    RenderMode mode;
+
+    RowLayoutPane pane;
+    Widget recolored;
+    double[] widths;
+    int call;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WidgetStore store = new WidgetStore(widgets);
+        List<Widget> list = new ArrayList<>(widgets);
+        for (int i = 0; i < widgets; i++)
+            list.add(LayoutBenchmark.addWidget(store, i));
+        pane = new RowLayoutPane();
+        pane.setRenderMode(mode);
+        pane.addWidgets(list);
+        recolored = list.get(widgets / 2);
+
+        double pref = pane.totalPrefWidth(), max = pane.totalMaxWidth();
+        widths = new double[] {pref + (max - pref) * 0.4, pref + (max - pref) * 0.8};
+        pane.resize(pref, HEIGHT);
+        pane.layoutChildren();
+    }
+
+    @Benchmark
+    public double resize() {
+        pane.resize(widths[call++ & 1], HEIGHT);
+        pane.layoutChildren(); //not in a scene, so the layout and paint run right away.
+        return pane.totalActualWidth();
+    }
+
+    @Benchmark
+    public Color recolor() {
+        recolored.setWidgetColor((call++ & 1) == 0 ? Color.CORAL : Color.TEAL);
+        pane.layoutChildren();
+        return recolored.getWidgetColor();
+    }
+}
@@ -0,0 +1,60 @@
+package Part2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the totals shown in the RowLayoutPane banner: reading them, and keeping them up to date when a widget's
+ * constraints change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotalsBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int widgets;
+
+    RowLayoutPane pane;
+    Widget[] list;
+    int call;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WidgetStore store = new WidgetStore(widgets);
+        List<Widget> added = new ArrayList<>(widgets);
+        for (int i = 0; i < widgets; i++)
+            added.add(LayoutBenchmark.addWidget(store, i));
+        pane = new RowLayoutPane();
+        pane.addWidgets(added);
+        list = added.toArray(new Widget[0]);
+        pane.resize(pane.totalPrefWidth(), 400);
+        pane.layoutChildren();
+    }
+
+    @Benchmark
+    public double widgetTotals() {
+        return pane.totalMinWidth() + pane.totalPrefWidth() + pane.totalMaxWidth() + pane.totalActualWidth();
+    }
+
+    @Benchmark
+    public boolean saturation() {
+        return pane.widgetsMaxed() | pane.widgetsMin();
+    }
+
+    /**
+     * Changes the preferred width of one widget and reads the totals back.
+     */
+    @Benchmark
+    public double prefWidthChanged() {
+        Widget w = list[call++ % list.length];
+        w.setPrefSize(w.getPrefWidth() + ((call & 1) == 0 ? 1 : -1), w.getPrefHeight());
+        return pane.totalPrefWidth();
+    }
+}
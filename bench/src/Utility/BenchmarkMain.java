@@ -0,0 +1,30 @@
+package Utility;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler (-prof gc), so every result comes with its allocation rate.
+ * Results are written to jmh-result.json in the working directory, keep a copy as the baseline to compare
+ * later runs against.
+ * The bench module needs annotation processing enabled so JMH can generate the benchmark classes.
+ *
+ * Usage: BenchmarkMain [regex of benchmarks to run, all by default]
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*Benchmark.*")
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Dprism.order=sw") //panes are laid out and painted without a window.
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,97 @@
+package Utility;
+
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the ColorUtility lookups used to build the color menus and the reverse lookup from a Color to its position
+ * done by Part1.Main and Part2.Main when a color is picked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorUtilityBenchmark {
+
+    Map<String, Color> map;
+    Color[] colors;
+    Color[] arbitrary; //colors that are not predefined, for the nearest color lookups.
+    int[] argb, nearest;
+    int call;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        map = ColorUtility.getColorsMap();
+        colors = ColorUtility.getColorList().toArray(new Color[0]);
+        Random random = new Random(42);
+        arbitrary = new Color[1024];
+        for (int i = 0; i < arbitrary.length; i++)
+            arbitrary[i] = Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+        argb = new int[1 << 20];
+        for (int i = 0; i < argb.length; i++)
+            argb[i] = 0xFF000000 | random.nextInt(1 << 24);
+        nearest = new int[argb.length];
+    }
+
+    @Benchmark
+    public Map<String, Color> getColorsMap() {
+        return ColorUtility.getColorsMap();
+    }
+
+    @Benchmark
+    public List<String> getColorNameList() {
+        return ColorUtility.getColorNameList();
+    }
+
+    /**
+     * The lookup the Mains do on a click.
+     */
+    @Benchmark
+    public int pickColor() {
+        return ColorUtility.indexOf(colors[call++ % colors.length]);
+    }
+
+    /**
+     * The lookup the Mains do on a click, for a color that is not predefined.
+     */
+    @Benchmark
+    public int pickNearestColor() {
+        return ColorUtility.nearestIndexOf(arbitrary[call++ % arbitrary.length]);
+    }
+
+    /**
+     * Nearest predefined colors of a million packed colors, per call.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int[] nearestBatch() {
+        ColorUtility.nearestIndexOf(argb, nearest);
+        return nearest;
+    }
+
+    /**
+     * The linear scan the Mains did on a click before the reverse index, kept as a baseline.
+     */
+    @Benchmark
+    public String getKeyFromValue() {
+        return getKeyFromValue(map, colors[call++ % colors.length]);
+    }
+
+    //Same scan as Part1.Main and Part2.Main used.
+    private static String getKeyFromValue(Map<String, Color> map, Color value) {
+        for (Map.Entry<String, Color> entry : map.entrySet()) {
+            if (Objects.equals(value, entry.getValue())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+}
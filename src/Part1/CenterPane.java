@@ -1,16 +1,40 @@
 package Part1;
 
+import Utility.ColorTransitions;
+import Utility.GraphicsContextRenderer;
+import Utility.LayoutEvent;
+import Utility.PaintEvent;
+import Utility.PaneEvent;
+import Utility.PaneStats;
+import Utility.PulseScheduler;
+import Utility.RenderMode;
+import Utility.Renderer;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Rectangle;
+
+import java.util.Objects;
 
 public class CenterPane extends Pane {
 
     final private SimpleObjectProperty<Color> centerPaneColor = new SimpleObjectProperty<>();
-    final private Canvas canvasFG, canvasBG;
-    final private GraphicsContext gcBG, gcFG;
+    //Layers, bottom to top: the color, the white ring and 2/3 oval, the colored 1/3 oval.
+    final private Canvas canvasFG, canvasGeometry, canvasBG;
+    final private Renderer gcBG, gcGeometry, gcFG;
+    final private PulseScheduler scheduler = new PulseScheduler(this, this::draw); //one draw per pulse.
+    final private PaneStats stats = new PaneStats(this, "CenterPane"); //timings, published over JMX.
+    //The color drawn, behind the color property while a transition runs.
+    final private SimpleObjectProperty<Color> shownColor = new SimpleObjectProperty<>();
+    final private ColorTransitions transitions = new ColorTransitions(this, (id, c) -> {
+        shownColor.set(c);
+        scheduler.request();
+    });
+    private RenderMode renderMode = RenderMode.IMMEDIATE;
+    private Rectangle background; //retained mode shapes, created when the mode is first used.
+    private Ellipse ring, whiteOval, innerOval;
     private int inset = 5;
     private int lineWidth = 5;
 
@@ -18,65 +42,216 @@ public class CenterPane extends Pane {
     private double wRadius;
     private double hRadius;
 
+    //What the layers show, to redraw only the layers that changed:
+    private double paintedWidth = -1, paintedHeight = -1;
+    private Color paintedColor;
+    private long geometryPaints, colorPaints, skippedPaints;
+
     public CenterPane(Color c) {
         centerPaneColor.set(c);
+        shownColor.set(c);
         canvasFG = new Canvas();
+        canvasGeometry = new Canvas();
         canvasBG = new Canvas();
-        gcFG = canvasFG.getGraphicsContext2D();
-        gcBG = canvasBG.getGraphicsContext2D();
+        gcFG = new GraphicsContextRenderer(canvasFG.getGraphicsContext2D());
+        gcGeometry = new GraphicsContextRenderer(canvasGeometry.getGraphicsContext2D());
+        gcBG = new GraphicsContextRenderer(canvasBG.getGraphicsContext2D());
         wRadius = this.getWidth()/2;
         hRadius = this.getHeight()/2;
-        getChildren().addAll(canvasBG, canvasFG);
+        getChildren().addAll(canvasBG, canvasGeometry, canvasFG);
+        //however the color is set, the pane fades from the color shown to it.
+        centerPaneColor.addListener((ov, oldVal, newVal) -> transitions.start(0, shownColor.get(), newVal));
     }
 
     public int getInset() {return inset;}
 
-    public void setInset(int inset) {this.inset = inset;}
+    public void setInset(int inset) {this.inset = inset; paintedWidth = -1; requestLayout();} //the geometry moves.
+
+    /**
+     * Chooses how the pattern gets on screen. IMMEDIATE draws it into canvases, RETAINED shows it as a Rectangle and
+     * Ellipses whose fills are bound to the color, so a new color or size only updates node properties.
+     * @param mode The RenderMode.
+     */
+    public void setRenderMode(RenderMode mode) {
+        if (renderMode == mode)
+            return;
+        renderMode = mode;
+        if (mode == RenderMode.RETAINED) {
+            if (background == null)
+                createShapes();
+            getChildren().setAll(background, ring, whiteOval, innerOval);
+        } else {
+            getChildren().setAll(canvasBG, canvasGeometry, canvasFG);
+            paintedWidth = -1; //the canvases were not kept up to date.
+        }
+        requestLayout();
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    private void createShapes() {
+        background = new Rectangle();
+        background.fillProperty().bind(shownColor);
+        ring = new Ellipse();
+        ring.setFill(null);
+        ring.setStroke(Color.WHITE);
+        ring.setStrokeWidth(lineWidth);
+        whiteOval = new Ellipse();
+        whiteOval.setFill(Color.WHITE);
+        innerOval = new Ellipse();
+        innerOval.fillProperty().bind(shownColor);
+    }
+
+    /**
+     * Sizes the retained mode shapes to the pane, the same pattern draw() paints.
+     */
+    private void layoutShapes() {
+        background.setWidth(getWidth());
+        background.setHeight(getHeight());
+        for (Ellipse e : new Ellipse[] {ring, whiteOval, innerOval}) {
+            e.setCenterX(wRadius);
+            e.setCenterY(hRadius);
+        }
+        ring.setRadiusX(wRadius - inset);
+        ring.setRadiusY(hRadius - inset);
+        whiteOval.setRadiusX(wRadius*2/3);
+        whiteOval.setRadiusY(hRadius*2/3);
+        innerOval.setRadiusX(wRadius/3);
+        innerOval.setRadiusY(hRadius/3);
+    }
 
     /**
      * Draws the pattern to the canvas with the selected color property.
      * The pattern displayed in the CenterPane consists of a large Oval shape that is centered and fills the available space with a 5 pixel
      * border on all sides. There is a white oval inside that is 2/3 the size of the first oval, and another colored oval that is 1/3 the size
      * of the first oval.
+     * The white shapes do not depend on the color and are only redrawn when the size changes, a new color only redraws
+     * the background and the inner oval. Nothing is drawn if neither changed since the last draw.
+     * While a color transition runs the pattern is drawn with the color it has reached.
      */
     private void draw() {
-        drawBackground(gcFG); //clear FG
-        drawBackground(gcBG); //redraw BG
-        gcFG.setStroke(Color.WHITE);
-        gcFG.setLineWidth(lineWidth);
-        gcFG.strokeOval(inset,inset,canvasFG.getWidth()-inset*2, canvasFG.getHeight()-inset*2);
+        if (renderMode == RenderMode.RETAINED)
+            return; //the shapes follow the color through their bindings.
+        boolean resized = getWidth() != paintedWidth || getHeight() != paintedHeight;
+        Color c = shownColor.get();
+        if (!resized && Objects.equals(c, paintedColor)) {
+            skippedPaints++;
+            return;
+        }
+        long allocated = PaneStats.threadAllocatedBytes();
+        PaintEvent event = PaintEvent.enabled() ? new PaintEvent() : null;
+        if (event != null)
+            event.begin();
+        long start = System.nanoTime();
+        if (resized) {
+            gcGeometry.clearRect(0, 0, getWidth(), getHeight());
+            drawGeometry(gcGeometry);
+            gcFG.clearRect(0, 0, getWidth(), getHeight());
+            paintedWidth = getWidth();
+            paintedHeight = getHeight();
+            geometryPaints++;
+        } else {
+            //the inner oval has not moved, clear its bounds and the anti-aliased edge around them.
+            gcFG.clearRect(wRadius - wRadius/3 - 1, hRadius - hRadius/3 - 1, wRadius/3*2 + 2, hRadius/3*2 + 2);
+            colorPaints++;
+        }
+        if (c != null) {
+            drawBackground(gcBG);
+            drawCenter(gcFG);
+        } else {
+            gcBG.clearRect(0, 0, getWidth(), getHeight()); //no color to show, the pane is left clear.
+        }
+        paintedColor = c;
+        stats.recordPaint(System.nanoTime() - start);
+        if (event != null && event.shouldCommit()) {
+            describe(event);
+            event.strategy = resized ? "layered, geometry" : "layered, color";
+            event.commit();
+        }
+        stats.recordFrame(allocated < 0 ? -1 : PaneStats.threadAllocatedBytes() - allocated);
+    }
+
+    private void describe(PaneEvent event) {
+        event.pane = "CenterPane";
+        event.canvasWidth = canvasFG.getWidth();
+        event.canvasHeight = canvasFG.getHeight();
+        event.strategy = renderMode == RenderMode.RETAINED ? "retained" : "layered";
+    }
+
+    /**
+     * Draws the pattern with the color shown, over a background of the same color, at the pane's size.
+     * With a RasterRenderer this renders the pane without a JavaFX toolkit.
+     * @param gc The Renderer to draw to.
+     */
+    public void render(Renderer gc) {
+        drawBackground(gc);
+        drawGeometry(gc);
+        drawCenter(gc);
+    }
+
+    /**
+     * Draws the shapes that only depend on the size: the white ring and the white 2/3 oval.
+     * @param gc The Renderer for the geometry.
+     */
+    private void drawGeometry(Renderer gc) {
+        gc.setStroke(Color.WHITE);
+        gc.setLineWidth(lineWidth);
+        gc.strokeOval(inset,inset,this.getWidth()-inset*2, this.getHeight()-inset*2);
 
         //Fill entire 2/3 oval in white:
-        gcFG.setFill(Color.WHITE);
-        gcFG.fillOval(wRadius  - (wRadius*2/3),hRadius - (hRadius*2/3),wRadius*2/3*2, hRadius*2/3*2);
+        gc.setFill(Color.WHITE);
+        gc.fillOval(wRadius  - (wRadius*2/3),hRadius - (hRadius*2/3),wRadius*2/3*2, hRadius*2/3*2);
+    }
 
-        //Fill inner 1/3 oval with color property:
-        gcFG.setFill(centerPaneColor.get());
-        gcFG.fillOval(wRadius-wRadius/3, hRadius-hRadius/3, wRadius/3*2, hRadius/3*2);
+    /**
+     * Fills the inner 1/3 oval with the color shown.
+     * @param gc The Renderer for the inner oval.
+     */
+    private void drawCenter(Renderer gc) {
+        gc.setFill(shownColor.get());
+        gc.fillOval(wRadius-wRadius/3, hRadius-hRadius/3, wRadius/3*2, hRadius/3*2);
     }
 
     /**
-     * Draws the background to the canvas with color specified from the color property.
-     * @param gc The graphics context for the background.
+     * Draws the background with the color shown.
+     * @param gc The Renderer for the background.
      */
-    private void drawBackground(GraphicsContext gc) {
-        gc.setFill(centerPaneColor.get());
-        gc.fillRect(0,0,canvasBG.getWidth(), canvasBG.getHeight());
+    private void drawBackground(Renderer gc) {
+        gc.setFill(shownColor.get());
+        gc.fillRect(0,0,this.getWidth(), this.getHeight());
     }
 
     /**
      * When the Pane size changes this method resizes the canvas background and foreground.
-     * calls the draw() method on Pane resize.
+     * schedules the draw() method on Pane resize, it runs once per pulse with the latest size.
+     * In retained mode the shapes are sized right away instead.
      */
     @Override
     public void layoutChildren() {
-        canvasBG.setWidth(this.getWidth());
-        canvasBG.setHeight(this.getHeight());
-        canvasFG.setWidth(this.getWidth());
-        canvasFG.setHeight(this.getHeight());
+        LayoutEvent event = LayoutEvent.enabled() ? new LayoutEvent() : null;
+        if (event != null)
+            event.begin();
+        long start = System.nanoTime();
         wRadius = this.getWidth()/2;
         hRadius = this.getHeight()/2;
-        draw();
+        if (renderMode == RenderMode.RETAINED) {
+            layoutShapes();
+        } else {
+            canvasBG.setWidth(this.getWidth());
+            canvasBG.setHeight(this.getHeight());
+            canvasGeometry.setWidth(this.getWidth());
+            canvasGeometry.setHeight(this.getHeight());
+            canvasFG.setWidth(this.getWidth());
+            canvasFG.setHeight(this.getHeight());
+            scheduler.request();
+        }
+        stats.recordLayout(System.nanoTime() - start);
+        if (event != null && event.shouldCommit()) {
+            describe(event);
+            event.commit();
+        }
     }
 
     /**
@@ -88,12 +263,53 @@ public class CenterPane extends Pane {
     }
 
     /**
-     * Sets the CenterPane Color.
+     * Sets the CenterPane Color. The pane fades from the color shown to the new one, redrawn once per pulse.
      * @param c Color to use for CenterPane.
      */
     public final void setCenterPaneColor(Color c){
         centerPaneColor.set(c);
-        draw();
+    }
+
+    /**
+     * @return The transitions of the pane color, to change their duration.
+     */
+    public ColorTransitions getColorTransitions() {
+        return transitions;
+    }
+
+    /**
+     * @return The scheduler running this pane's draw, with counts of coalesced requests.
+     */
+    public PulseScheduler getPulseScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return How many draws redrew the white shapes because the size changed.
+     */
+    public long getGeometryPaints() {
+        return geometryPaints;
+    }
+
+    /**
+     * @return How many draws only redrew the colored layers.
+     */
+    public long getColorPaints() {
+        return colorPaints;
+    }
+
+    /**
+     * @return How many draws were skipped because neither the size nor the color changed.
+     */
+    public long getSkippedPaints() {
+        return skippedPaints;
+    }
+
+    /**
+     * @return The layout and paint timings of this pane, also published as an MBean while the pane is in a scene.
+     */
+    public PaneStats getStats() {
+        return stats;
     }
 
     /**
@@ -1,6 +1,7 @@
 package Part1;
 
 import Utility.ColorUtility;
+import Utility.SwatchAtlas;
 import javafx.application.Application;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -42,6 +43,7 @@ public class Main extends Application {
         ListView<String> listView = new ListView<>();
         ObservableList<String> items = FXCollections.observableArrayList(ColorUtility.getColorNameList());
         listView.setItems(items);
+        listView.setCellFactory(new SwatchAtlas(ColorUtility.getColorList()).cellFactory()); //items are in the same order.
         //EventHandler for listView items:
         listView.getSelectionModel().selectedItemProperty().addListener(
                 (ov, oldVal, newVal) -> {
@@ -57,8 +59,8 @@ public class Main extends Application {
             //Listen for mouse events on each circle:
             l.setOnMousePressed(event->{
                 Color c = (Color) l.getFill();
-                int index = items.indexOf(getKeyFromValue(Utility.ColorUtility.getColorsMap(),c));
-                listView.getSelectionModel().select(items.get(index)); //Fires the ListView listener to set bottomLabel and Color
+                int index = ColorUtility.nearestIndexOf(c); //items are in the same order as the color name list.
+                listView.getSelectionModel().select(index); //Fires the ListView listener to set bottomLabel and Color
             });
         }
 
@@ -86,15 +88,6 @@ public class Main extends Application {
 
     }
 
-    private String getKeyFromValue(Map<String, Color> map, Color value) {
-        for (Map.Entry<String, Color> entry : map.entrySet()) {
-            if (Objects.equals(value, entry.getValue())) {
-                return entry.getKey();
-            }
-        }
-        return null;
-    }
-
     private Menu createMenuItems(String text, int numItems) {
         int i;
         Menu menu = new Menu(text);
@@ -106,7 +99,7 @@ public class Main extends Application {
 
     private List<Circle> createCircles() {
         List<Circle> list = new ArrayList<>();
-        List<Color> randColors = ColorUtility.getColorList();
+        List<Color> randColors = new ArrayList<>(ColorUtility.getColorList()); //the shared list cannot be shuffled.
         Collections.shuffle(randColors);
         for (int i = 0; i < NUM_CIRCLE; i++) {
             list.add(new Circle(CIRCLE_RADIUS));
@@ -0,0 +1,20 @@
+package Part2;
+
+/**
+ * How a row shares out space when it grows or shrinks. With every strategy a widget stops at its min or max width
+ * and the space it cannot take is shared by the widgets that can still change.
+ */
+public enum Distribution {
+    /** Every widget grows or shrinks by the same amount. */
+    EQUAL,
+    /** Widgets grow or shrink in proportion to their min width (growProp/shrinkProp with propVal 0). */
+    PROPORTIONAL_MIN,
+    /** Widgets grow or shrink in proportion to their max width (growProp/shrinkProp with propVal 1). */
+    PROPORTIONAL_MAX,
+    /**
+     * Widgets grow or shrink in proportion to their current width (growProp/shrinkProp with propVal 2).
+     * RowLayoutPane and WrapLayoutPane solve their rows from the preferred widths, so they share space in proportion
+     * to the preferred widths.
+     */
+    PROPORTIONAL_CURRENT
+}
@@ -0,0 +1,213 @@
+package Part2;
+
+import Utility.Renderer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.FontSmoothingType;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the width labels drawn by Widgets and the totals banner drawn by RowLayoutPane as pre-rendered images.
+ * Labels are keyed by the numbers they show, a widget's width at the two decimals it is shown with, so a lookup
+ * builds no text and a label is only rendered again when a shown number changes. The text is only built when a label
+ * is rendered. The least recently used labels are evicted once the cache is full.
+ */
+class LabelCache {
+
+    private static final int DEFAULT_CAPACITY = 512;
+    private static final double MAX_CENTS = 1e15; //widths shown from their cents in a long, larger ones are formatted.
+
+    /**
+     * The numbers a label shows. Mutable so lookups can reuse one probe key.
+     */
+    private static final class Key {
+        boolean banner;
+        double min, pref, max;
+        double width; //the width in cents for a widget label with a small enough width, the width itself otherwise.
+        boolean cents;
+
+        Key set(boolean banner, double min, double pref, double max, double width, boolean cents) {
+            this.banner = banner;
+            this.min = min;
+            this.pref = pref;
+            this.max = max;
+            this.width = width;
+            this.cents = cents;
+            return this;
+        }
+
+        Key copy() {
+            return new Key().set(banner, min, pref, max, width, cents);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return banner == k.banner && cents == k.cents && Double.compare(min, k.min) == 0
+                    && Double.compare(pref, k.pref) == 0 && Double.compare(max, k.max) == 0
+                    && Double.compare(width, k.width) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = Double.doubleToLongBits(min);
+            h = 31 * h + Double.doubleToLongBits(pref);
+            h = 31 * h + Double.doubleToLongBits(max);
+            h = 31 * h + Double.doubleToLongBits(width);
+            h = 31 * h + (banner ? 1 : 0) + (cents ? 2 : 0);
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * A rendered label and where to draw it relative to the text origin, in pane coordinates.
+     */
+    static final class Label {
+        final Image image;
+        final double dx, dy, width, height;
+
+        Label(Image image, double dx, double dy, double width, double height) {
+            this.image = image;
+            this.dx = dx;
+            this.dy = dy;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Draws the label as if its text was stroked at (x, y).
+         */
+        void draw(Renderer r, double x, double y) {
+            r.drawImage(image, x + dx, y + dy, width, height);
+        }
+    }
+
+    private final Map<Key, Label> labels;
+    private final Key probe = new Key();
+    private final Text text = new Text(); //reused to render every label.
+    private final SnapshotParameters params = new SnapshotParameters();
+    private double scaleX = 1, scaleY = 1; //output scale of the screen the labels are rendered for.
+
+    LabelCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The number of labels kept before the least recently used one is evicted.
+     */
+    LabelCache(int capacity) {
+        labels = new LinkedHashMap<Key, Label>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Label> eldest) {
+                return size() > capacity;
+            }
+        };
+        text.setFill(null);
+        text.setStroke(Color.WHITE);
+        text.setStrokeWidth(1);
+        text.setFontSmoothingType(FontSmoothingType.GRAY); //LCD smoothing needs an opaque background.
+        params.setFill(Color.TRANSPARENT);
+    }
+
+    /**
+     * Renders the labels at the output scale of the window showing a node, so they stay sharp on HiDPI screens.
+     * The cached labels are dropped when the scale changes.
+     *
+     * @param owner The node the labels are drawn in.
+     */
+    void updateScale(Node owner) {
+        Scene scene = owner.getScene();
+        Window window = scene == null ? null : scene.getWindow();
+        double sx = window == null ? 1 : window.getOutputScaleX(), sy = window == null ? 1 : window.getOutputScaleY();
+        if (sx == scaleX && sy == scaleY)
+            return;
+        scaleX = sx;
+        scaleY = sy;
+        params.setTransform(Transform.scale(sx, sy));
+        labels.clear();
+    }
+
+    /**
+     * Returns the rendered label of a widget, rendering it the first time it is asked for.
+     *
+     * @return The label, or null when called off the JavaFX Application Thread, where labels cannot be rendered and
+     *         the caller strokes widgetText() instead.
+     */
+    Label getWidgetLabel(double minWidth, double prefWidth, double maxWidth, double width) {
+        double cents = Math.rint(width * 100);
+        boolean small = Math.abs(cents) < MAX_CENTS;
+        Label label = labels.get(probe.set(false, minWidth, prefWidth, maxWidth, small ? cents : width, small));
+        if (label != null)
+            return label;
+        return render(widgetText(minWidth, prefWidth, maxWidth, width));
+    }
+
+    /**
+     * Returns the rendered totals banner, rendering it the first time it is asked for.
+     *
+     * @return The label, or null when called off the JavaFX Application Thread, where the caller strokes
+     *         bannerText() instead.
+     */
+    Label getBannerLabel(double minWidth, double prefWidth, double maxWidth, double width) {
+        Label label = labels.get(probe.set(true, minWidth, prefWidth, maxWidth, width, false));
+        if (label != null)
+            return label;
+        return render(bannerText(minWidth, prefWidth, maxWidth, width));
+    }
+
+    static String widgetText(double minWidth, double prefWidth, double maxWidth, double width) {
+        return "\nMin Width: " + minWidth + "\nPref Width: " + prefWidth +"\nMax Width: " + maxWidth +
+                "\nWidth: "  + widthText(width);
+    }
+
+    /**
+     * Formats a width with two decimals from its rounded cents, the value the cache keys widget labels by.
+     */
+    static String widthText(double width) {
+        double cents = Math.rint(width * 100);
+        if (!(Math.abs(cents) < MAX_CENTS))
+            return String.format("%.2f", width);
+        long c = Math.abs((long) cents);
+        long fraction = c % 100;
+        return (cents < 0 ? "-" : "") + c / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    static String bannerText(double minWidth, double prefWidth, double maxWidth, double width) {
+        return "\nMin Width: " + minWidth
+                + "\nPref Width: " + prefWidth
+                + "\nMax Width: " + maxWidth
+                + "\nWidth: " + width;
+    }
+
+    /**
+     * Renders the text into an image at the output scale and caches it under the probe key.
+     */
+    private Label render(String s) {
+        if (!Platform.isFxApplicationThread())
+            return null;
+        text.setText(s);
+        Image image = text.snapshot(params, null);
+        Label label = new Label(image, text.getBoundsInParent().getMinX(), text.getBoundsInParent().getMinY(),
+                image.getWidth() / scaleX, image.getHeight() / scaleY);
+        labels.put(probe.copy(), label);
+        return label;
+    }
+
+    /**
+     * @return The number of cached labels.
+     */
+    int size() {
+        return labels.size();
+    }
+}
@@ -0,0 +1,562 @@
+package Part2;
+
+import javafx.scene.paint.Color;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the RowLayoutPane sizing rules from the command line over widget sets too large to hold in memory.
+ * Widgets are read from a memory mapped file, one window at a time, so memory use does not depend on the number of
+ * widgets. Each container width is solved by searching for the shift every widget moves by (see WidthSolver), one
+ * streaming pass per step of the search, and the container widths are solved in parallel.
+ * Widgets start from their preferred widths, so a width always gives the same layout.
+ *
+ * Input is CSV, one widget per line as min,pref,max[,position] with an optional header line, or the binary format
+ * written by --convert: the magic "WSP1" then per widget three doubles (min, pref, max) and a position byte.
+ * Output is CSV, one line per widget: container,index,x,width,color,position. The color is the one RowCell.setColor
+ * would pick, or "-" when the widget keeps its color.
+ *
+ * Usage: LayoutBatch input --widths from:to:step [--distribution EQUAL] [--out dir]
+ *        LayoutBatch input --convert output.bin
+ */
+public class LayoutBatch {
+
+    private static final int MAGIC = 0x57535031; //"WSP1"
+    private static final int RECORD_BYTES = 3 * Double.BYTES + 1;
+    private static final long WINDOW = 64L << 20; //bytes mapped at a time.
+    private static final int POINTS = 16; //shifts tried by each pass of the search.
+    private static final int MAX_PASSES = 64;
+    private static final RowLayoutPane.Position[] POSITION_NAMES = RowLayoutPane.Position.values();
+    private static final int POSITIONS = POSITION_NAMES.length;
+
+    private final FileChannel channel;
+    private final boolean binary;
+    private final long dataStart;
+    private final Distribution distribution;
+
+    /**
+     * Receives the widgets of a pass in file order.
+     */
+    interface Visitor {
+        void widget(long index, double min, double pref, double max, int position);
+    }
+
+    /**
+     * Opens a widget file. Binary files are recognised by their magic number, anything else is read as CSV.
+     *
+     * @param input The file to read.
+     * @param distribution How the widgets share out space.
+     */
+    public LayoutBatch(Path input, Distribution distribution) throws IOException {
+        this.distribution = distribution;
+        channel = FileChannel.open(input, StandardOpenOption.READ);
+        ByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 4096));
+        binary = head.remaining() >= 4 && head.getInt(0) == MAGIC;
+        if (binary) {
+            dataStart = 4;
+        } else {
+            //skip a header line, one that does not start like a number.
+            int p = 0;
+            while (p < head.limit() && (head.get(p) == ' ' || head.get(p) == '\t'))
+                p++;
+            if (p < head.limit() && Character.isLetter(head.get(p)))
+                dataStart = endOfLine(p);
+            else
+                dataStart = 0;
+        }
+    }
+
+    /**
+     * Finds the end of a line, mapping as much of the file as it takes, so a header of any length is skipped.
+     *
+     * @param from The position of a byte of the line.
+     * @return The position after the '\n' ending the line, or the size of the file if the line is the last one.
+     */
+    private long endOfLine(long from) throws IOException {
+        long size = channel.size();
+        for (long pos = from; pos < size; ) {
+            long len = Math.min(WINDOW, size - pos);
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            for (int i = 0; i < len; i++)
+                if (buf.get(i) == '\n')
+                    return pos + i + 1;
+            pos += len;
+        }
+        return size;
+    }
+
+    public static void main(String[] args) {
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LayoutBatch input --widths from:to:step [--distribution EQUAL] [--out dir]");
+            System.err.println("       LayoutBatch input --convert output.bin");
+            System.exit(1);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void run(String[] args) throws IOException {
+        if (args.length == 0)
+            throw new IllegalArgumentException("No input file.");
+        Path input = Paths.get(args[0]);
+        double[] widths = null;
+        Distribution distribution = Distribution.EQUAL;
+        Path out = null, convert = null;
+        for (int a = 1; a < args.length; a++) {
+            if (a + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + args[a]);
+            switch (args[a]) {
+                case "--widths":
+                    widths = parseWidths(args[++a]);
+                    break;
+                case "--distribution":
+                    distribution = Distribution.valueOf(args[++a].toUpperCase());
+                    break;
+                case "--out":
+                    out = Paths.get(args[++a]);
+                    break;
+                case "--convert":
+                    convert = Paths.get(args[++a]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[a]);
+            }
+        }
+        LayoutBatch batch = new LayoutBatch(input, distribution);
+        if (convert != null) {
+            batch.convert(convert);
+        } else if (widths == null) {
+            throw new IllegalArgumentException("No --widths given.");
+        } else if (out != null) {
+            Files.createDirectories(out);
+            batch.sweep(widths, out);
+        } else {
+            batch.sweep(widths, System.out);
+        }
+    }
+
+    /**
+     * Parses from:to:step, or a single width.
+     */
+    static double[] parseWidths(String s) {
+        String[] parts = s.split(":");
+        double from = Double.parseDouble(parts[0]);
+        if (parts.length == 1)
+            return new double[] {from};
+        double to = Double.parseDouble(parts[1]);
+        double step = parts.length > 2 ? Double.parseDouble(parts[2]) : 1;
+        if (step <= 0 || to < from)
+            throw new IllegalArgumentException("Bad width range " + s);
+        int n = (int) Math.floor((to - from) / step + 1e-9) + 1;
+        double[] widths = new double[n];
+        for (int i = 0; i < n; i++)
+            widths[i] = from + i * step;
+        return widths;
+    }
+
+    /**
+     * Solves every width in parallel and writes each layout to its own file, layout-[width].csv, in the directory.
+     */
+    public void sweep(double[] widths, Path dir) throws IOException {
+        Bounds bounds = bounds();
+        IntStream.range(0, widths.length).parallel().forEach(w -> {
+            double shift = solveShift(bounds, widths[w]);
+            Path file = dir.resolve("layout-" + format(widths[w]) + ".csv");
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                write(widths[w], shift, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Solves every width in parallel, then writes the layouts one after the other, in width order.
+     */
+    public void sweep(double[] widths, OutputStream stream) throws IOException {
+        Bounds bounds = bounds();
+        double[] shifts = new double[widths.length];
+        IntStream.range(0, widths.length).parallel().forEach(w -> shifts[w] = solveShift(bounds, widths[w]));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16);
+        for (int w = 0; w < widths.length; w++)
+            write(widths[w], shifts[w], writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the widgets as the binary format, to be read faster than CSV next time.
+     */
+    public void convert(Path output) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output),
+                1 << 16))) {
+            out.writeInt(MAGIC);
+            scan((index, min, pref, max, position) -> {
+                try {
+                    out.writeDouble(min);
+                    out.writeDouble(pref);
+                    out.writeDouble(max);
+                    out.writeByte(position);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /********************************************************************************************************
+    SOLVING: the width of a widget is clamp(pref + shift * weight, min, max), which grows with the shift, so the
+    shift that fills a container is found by narrowing an interval, POINTS shifts per pass over the file.
+    ********************************************************************************************************/
+
+    /**
+     * What the first pass learns about the widgets: the range of useful shifts and the row width at its ends.
+     */
+    static final class Bounds {
+        long count;
+        double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY; //shifts at which all are at min, max.
+        double minPref = Double.POSITIVE_INFINITY, minWeight = Double.POSITIVE_INFINITY;
+        double widthAtLo, widthAtHi;
+    }
+
+    private double weight(double min, double pref, double max) {
+        switch (distribution) {
+            case PROPORTIONAL_MIN:
+                return Math.max(0, min);
+            case PROPORTIONAL_MAX:
+                return Math.max(0, max);
+            case PROPORTIONAL_CURRENT:
+                return Math.max(0, pref); //widgets start from their preferred widths.
+            case EQUAL: default:
+                return 1;
+        }
+    }
+
+    private static double width(double min, double pref, double max, double weight, double shift) {
+        if (weight == 0)
+            return Math.min(Math.max(pref, min), max);
+        return Math.min(Math.max(pref + shift * weight, min), max);
+    }
+
+    Bounds bounds() {
+        Bounds b = new Bounds();
+        scan((index, min, pref, max, position) -> {
+            b.count++;
+            double weight = weight(min, pref, max);
+            if (weight > 0) {
+                b.lo = Math.min(b.lo, (min - pref) / weight);
+                b.hi = Math.max(b.hi, (max - pref) / weight);
+                b.minPref = Math.min(b.minPref, pref);
+                b.minWeight = Math.min(b.minWeight, weight);
+                b.widthAtLo += min;
+                b.widthAtHi += max;
+            } else {
+                double w = Math.min(Math.max(pref, min), max);
+                b.widthAtLo += w;
+                b.widthAtHi += w;
+            }
+        });
+        return b;
+    }
+
+    /**
+     * Finds the shift at which the widgets fill the container.
+     * If the container is narrower than every widget at min width the widgets stay at min width (the row clips), if
+     * it is wider than every widget at max width they stay at max width.
+     */
+    double solveShift(Bounds b, double target) {
+        if (b.count == 0 || b.lo > b.hi)
+            return 0; //nothing can move.
+        if (target <= b.widthAtLo)
+            return b.lo;
+        if (target >= b.widthAtHi)
+            return b.hi;
+        //no widget is wider than the container once it is filled, which keeps the interval finite.
+        double lo = b.lo, hi = Math.min(b.hi, (target - b.minPref) / b.minWeight);
+        double sumLo = b.widthAtLo, sumHi = Double.NaN;
+        double[] shifts = new double[POINTS], sums = new double[POINTS];
+        for (int pass = 0; pass < MAX_PASSES && hi - lo > 1e-9 * Math.max(1, Math.abs(lo)); pass++) {
+            for (int j = 0; j < POINTS; j++)
+                shifts[j] = lo + (hi - lo) * (j + 1) / (POINTS + 1);
+            Arrays.fill(sums, 0);
+            scan((index, min, pref, max, position) -> {
+                double weight = weight(min, pref, max);
+                for (int j = 0; j < POINTS; j++)
+                    sums[j] += width(min, pref, max, weight, shifts[j]);
+            });
+            int j = 0;
+            while (j < POINTS && sums[j] < target)
+                j++;
+            if (j > 0) {
+                lo = shifts[j - 1];
+                sumLo = sums[j - 1];
+            }
+            if (j < POINTS) {
+                hi = shifts[j];
+                sumHi = sums[j];
+                if (sums[j] == target)
+                    return hi;
+            }
+        }
+        if (Double.isNaN(sumHi) || sumHi <= sumLo)
+            return lo;
+        //the row width is linear between two close shifts, interpolate the rest of the way.
+        return lo + (target - sumLo) * (hi - lo) / (sumHi - sumLo);
+    }
+
+    /**
+     * Streams the layout of one container width to a writer.
+     */
+    private void write(double container, double shift, Writer writer) {
+        String prefix = format(container) + ",";
+        double[] x = {0};
+        StringBuilder line = new StringBuilder(64);
+        scan((index, min, pref, max, position) -> {
+            double width = width(min, pref, max, weight(min, pref, max), shift);
+            line.setLength(0);
+            line.append(prefix).append(index).append(',').append(x[0]).append(',').append(width).append(',')
+                    .append(colorName(width, min, pref, max)).append(',')
+                    .append(POSITION_NAMES[position]).append('\n');
+            x[0] += width;
+            try {
+                writer.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String colorName(double width, double min, double pref, double max) {
+        Color c = LayoutSnapshot.colorFor(width, min, pref, max);
+        if (c == null)
+            return "-";
+        if (c.equals(Color.GREEN))
+            return "GREEN";
+        if (c.equals(Color.RED))
+            return "RED";
+        if (c.equals(Color.BLUE))
+            return "BLUE";
+        if (c.equals(Color.PURPLE))
+            return "PURPLE";
+        return "ORANGE";
+    }
+
+    private static String format(double d) {
+        return d == Math.rint(d) ? Long.toString((long) d) : Double.toString(d);
+    }
+
+    /********************************************************************************************************
+    READING: one pass over the file, mapped WINDOW bytes at a time.
+    ********************************************************************************************************/
+
+    /**
+     * Reads every widget of the file in order. Safe to call from several threads at once.
+     */
+    void scan(Visitor v) {
+        try {
+            if (binary)
+                scanBinary(v);
+            else
+                scanCsv(v);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void scanBinary(Visitor v) throws IOException {
+        long size = channel.size(), pos = dataStart, index = 0;
+        long window = WINDOW / RECORD_BYTES * RECORD_BYTES;
+        while (pos + RECORD_BYTES <= size) {
+            long len = Math.min(window, (size - pos) / RECORD_BYTES * RECORD_BYTES);
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            for (int p = 0; p < len; p += RECORD_BYTES) {
+                int position = buf.get(p + 3 * Double.BYTES);
+                if (position < 0 || position >= POSITIONS)
+                    throw new IOException("Bad position " + position + " of widget " + index + " at byte " + (pos + p));
+                v.widget(index++, buf.getDouble(p), buf.getDouble(p + Double.BYTES),
+                        buf.getDouble(p + 2 * Double.BYTES), position);
+            }
+            pos += len;
+        }
+    }
+
+    private void scanCsv(Visitor v) throws IOException {
+        long size = channel.size(), pos = dataStart;
+        CsvCursor c = new CsvCursor();
+        c.line = dataStart > 0 ? 2 : 1; //the header is line 1.
+        long index = 0;
+        while (pos < size) {
+            long len = Math.min(WINDOW, size - pos);
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            int end = (int) len;
+            if (pos + len < size) {
+                //stop after the last whole line, the next window starts with the rest.
+                while (end > 0 && buf.get(end - 1) != '\n')
+                    end--;
+                if (end == 0)
+                    throw c.error("Line longer than " + WINDOW + " bytes");
+            }
+            c.buf = buf;
+            c.p = 0;
+            c.end = end;
+            while (c.p < end) {
+                if (c.skipBlankLine())
+                    continue;
+                double min = c.number(), pref = c.number(), max = c.number();
+                int position = c.position();
+                v.widget(index++, min, pref, max, position);
+            }
+            pos += end;
+        }
+    }
+
+    /**
+     * Parses CSV fields in place in a mapped window, without creating Strings for plain numbers.
+     * Spaces and tabs around fields are skipped.
+     */
+    private static final class CsvCursor {
+        ByteBuffer buf;
+        int p, end;
+        long line; //1-based line of the file p is on, for error messages.
+
+        IOException error(String message) {
+            return new IOException(message + " on line " + line);
+        }
+
+        private boolean blank(int q) {
+            return q < end && (buf.get(q) == ' ' || buf.get(q) == '\t');
+        }
+
+        /**
+         * Skips an empty line or a # comment.
+         *
+         * @return true if a line was skipped.
+         */
+        boolean skipBlankLine() {
+            int q = p;
+            while (q < end && (buf.get(q) == ' ' || buf.get(q) == '\t' || buf.get(q) == '\r'))
+                q++;
+            if (q < end && buf.get(q) != '\n' && buf.get(q) != '#')
+                return false;
+            while (q < end && buf.get(q) != '\n')
+                q++;
+            p = q + 1;
+            line++;
+            return true;
+        }
+
+        double number() throws IOException {
+            while (blank(p))
+                p++;
+            int start = p;
+            boolean negative = false;
+            if (p < end && (buf.get(p) == '-' || buf.get(p) == '+'))
+                negative = buf.get(p++) == '-';
+            long mantissa = 0;
+            int digits = 0, fraction = 0; //significant digits, digits after the dot.
+            boolean dot = false, simple = true, any = false;
+            for (; p < end; p++) {
+                byte b = buf.get(p);
+                if (b >= '0' && b <= '9') {
+                    any = true;
+                    if (mantissa == 0 && b == '0') { //leading zeros are not significant.
+                        if (dot)
+                            fraction++;
+                    } else if (digits < 15) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        digits++;
+                        if (dot)
+                            fraction++;
+                    } else {
+                        simple = false; //more digits than a double holds exactly, Double.parseDouble rounds them.
+                    }
+                } else if (b == '.' && !dot) {
+                    dot = true;
+                } else if (b == ',' || b == '\n' || b == '\r' || b == ' ' || b == '\t') {
+                    break;
+                } else {
+                    simple = false; //exponents, infinity and the like.
+                }
+            }
+            double value;
+            if (simple && any && fraction < POW10.length) {
+                //mantissa and the power of ten are exact in a double, so one division rounds like Double.parseDouble.
+                value = mantissa / POW10[fraction];
+                if (negative)
+                    value = -value;
+            } else {
+                byte[] text = new byte[p - start];
+                for (int i = 0; i < text.length; i++)
+                    text[i] = buf.get(start + i);
+                String field = new String(text, StandardCharsets.US_ASCII);
+                try {
+                    value = Double.parseDouble(field.trim());
+                } catch (NumberFormatException e) {
+                    throw error("Bad number \"" + field + "\"");
+                }
+            }
+            while (blank(p))
+                p++;
+            if (p < end && buf.get(p) == ',')
+                p++;
+            else if (p < end && buf.get(p) != '\n' && buf.get(p) != '\r')
+                throw error("Expected a comma after a number, found \"" + (char) buf.get(p) + "\"");
+            return value;
+        }
+
+        /**
+         * Reads the optional position field and moves to the next line.
+         */
+        int position() throws IOException {
+            while (blank(p))
+                p++;
+            int start = p;
+            while (p < end && buf.get(p) != '\n' && buf.get(p) != '\r' && buf.get(p) != ',')
+                p++;
+            int position = 0;
+            if (p > start) {
+                byte first = buf.get(start);
+                if (first == 'T' || first == 't')
+                    position = RowLayoutPane.Position.TOP.ordinal();
+                else if (first == 'C' || first == 'c')
+                    position = RowLayoutPane.Position.CENTER.ordinal();
+                else if (first == 'F' || first == 'f')
+                    position = RowLayoutPane.Position.FILL.ordinal();
+                else
+                    throw error("Bad position");
+            }
+            while (p < end && buf.get(p) != '\n')
+                p++;
+            p++;
+            line++;
+            return position;
+        }
+
+        private static final double[] POW10 = new double[16];
+
+        static {
+            POW10[0] = 1;
+            for (int i = 1; i < POW10.length; i++)
+                POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package Part2;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers solved layouts of a row by the version of its widgets and the size it was solved for. Rows are solved
+ * from the preferred widths, so these decide the layout and a lookup is a hash of three numbers whatever the number
+ * of widgets.
+ * The least recently used layouts are evicted once their estimated size passes a limit in bytes. Layouts of an older
+ * version can never be asked for again and are dropped as soon as the version changes.
+ */
+class LayoutCache {
+
+    /**
+     * The version and size a layout was solved for. Mutable so lookups can reuse one probe key.
+     */
+    private static final class Key {
+        long version;
+        double width, height;
+
+        Key set(long version, double width, double height) {
+            this.version = version;
+            this.width = width;
+            this.height = height;
+            return this;
+        }
+
+        Key copy() {
+            return new Key().set(version, width, height);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return version == k.version && Double.compare(width, k.width) == 0
+                    && Double.compare(height, k.height) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = version;
+            h = 31 * h + Double.doubleToLongBits(width);
+            h = 31 * h + Double.doubleToLongBits(height);
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private final Map<Key, LayoutSnapshot> layouts = new LinkedHashMap<>(16, 0.75f, true);
+    private final Key probe = new Key();
+    private long maxBytes, bytes;
+    private long version = Long.MIN_VALUE; //version of the cached layouts.
+    private long hits, misses, evictions;
+
+    /**
+     * @param maxBytes The estimated size the cached layouts may take, 0 to cache nothing.
+     */
+    LayoutCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Returns the layout solved for a version and size, and counts a hit or a miss.
+     *
+     * @return The layout, or null if it is not cached.
+     */
+    LayoutSnapshot get(long version, double width, double height) {
+        dropOlderThan(version);
+        LayoutSnapshot s = layouts.get(probe.set(version, width, height));
+        if (s == null)
+            misses++;
+        else
+            hits++;
+        return s;
+    }
+
+    /**
+     * Caches a layout, evicting the least recently used ones to stay under the limit.
+     * A layout bigger than the limit on its own is not cached.
+     */
+    void put(long version, double width, double height, LayoutSnapshot s) {
+        dropOlderThan(version);
+        if (version != this.version || s.bytes() > maxBytes)
+            return;
+        LayoutSnapshot old = layouts.put(probe.set(version, width, height).copy(), s);
+        if (old != null)
+            bytes -= old.bytes();
+        bytes += s.bytes();
+        trim();
+    }
+
+    private void dropOlderThan(long version) {
+        if (version > this.version) {
+            clear();
+            this.version = version;
+        }
+    }
+
+    private void trim() {
+        Iterator<LayoutSnapshot> it = layouts.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().bytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Sets the limit, evicting layouts if the cache is now over it.
+     *
+     * @param maxBytes The estimated size the cached layouts may take, 0 to cache nothing.
+     */
+    void setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        trim();
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    void clear() {
+        layouts.clear();
+        bytes = 0;
+    }
+
+    int size() {
+        return layouts.size();
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    long getEvictions() {
+        return evictions;
+    }
+}
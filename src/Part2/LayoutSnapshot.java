@@ -0,0 +1,175 @@
+package Part2;
+
+import javafx.scene.paint.Color;
+
+import java.util.List;
+
+/**
+ * An immutable, solved layout of a row: the x position, width and color of every cell and the vertical position and
+ * height of its widget. Snapshots are computed from copies of the widget constraints so they can be solved on any
+ * thread, then applied to the RowCells on the JavaFX Application Thread.
+ */
+final class LayoutSnapshot {
+
+    private final long seq; //order in which the layout was requested.
+    private final int version; //widget set the layout was solved for.
+    private final double rowWidth, rowHeight;
+    private final double[] x, width, widgetY, widgetHeight;
+    private final Color[] color;
+
+    private LayoutSnapshot(long seq, int version, double rowWidth, double rowHeight, int n) {
+        this.seq = seq;
+        this.version = version;
+        this.rowWidth = rowWidth;
+        this.rowHeight = rowHeight;
+        x = new double[n];
+        width = new double[n];
+        widgetY = new double[n];
+        widgetHeight = new double[n];
+        color = new Color[n];
+    }
+
+    /**
+     * Solves a row from the preferred widths. The arrays are read only, the caller must not change them while the
+     * solve runs.
+     *
+     * @param seq The order in which the layout was requested.
+     * @param version The version of the widget set the inputs were copied from.
+     * @param rowWidth The width of the row to fill.
+     * @param rowHeight The height of the row.
+     * @param min The min widths of the widgets.
+     * @param pref The preferred widths of the widgets.
+     * @param max The max widths of the widgets.
+     * @param heights The current heights of the widgets.
+     * @param positions The vertical Position of each widget.
+     * @param distribution How the row shares out space.
+     * @return The solved layout.
+     */
+    static LayoutSnapshot solve(long seq, int version, double rowWidth, double rowHeight,
+                                double[] min, double[] pref, double[] max,
+                                double[] heights, RowLayoutPane.Position[] positions,
+                                Distribution distribution) {
+        int n = min.length;
+        LayoutSnapshot s = new LayoutSnapshot(seq, version, rowWidth, rowHeight, n);
+        WidthSolver.solve(min, pref, max, null, rowWidth, 0, n, s.width, distribution);
+        double w = 0;
+        for (int i = 0; i < n; i++) {
+            s.x[i] = w;
+            w += s.width[i];
+            s.widgetHeight[i] = positions[i] == RowLayoutPane.Position.FILL ? rowHeight : heights[i];
+            s.widgetY[i] = widgetY(positions[i], rowHeight, s.widgetHeight[i]);
+            s.color[i] = colorFor(s.width[i], min[i], pref[i], max[i]);
+        }
+        return s;
+    }
+
+    /**
+     * Records a layout the pane solved itself, so it can be cached like a solved snapshot. The result is what solve()
+     * gives for the same inputs.
+     *
+     * @param version The version of the widget set.
+     * @param rowWidth The width of the row the cells were laid out for.
+     * @param rowHeight The height of the row.
+     * @param cells The laid out cells.
+     * @param n The number of cells.
+     * @return The layout.
+     */
+    static LayoutSnapshot capture(int version, double rowWidth, double rowHeight, List<RowLayoutPane.RowCell> cells,
+                                  int n) {
+        LayoutSnapshot s = new LayoutSnapshot(0, version, rowWidth, rowHeight, n);
+        for (int i = 0; i < n; i++) {
+            RowLayoutPane.RowCell rc = cells.get(i);
+            Widget w = rc.getWidget();
+            s.x[i] = rc.x;
+            s.width[i] = rc.width;
+            s.widgetY[i] = w.getYPos() - rc.y;
+            s.widgetHeight[i] = w.getHeight();
+            s.color[i] = colorFor(rc.width, rc.minWidth, rc.prefWidth, rc.maxWidth);
+        }
+        return s;
+    }
+
+    /**
+     * Vertical position of a widget in its cell.
+     *
+     * @param p The Position (TOP,CENTER,FILL) of the widget.
+     * @param rowHeight The height of the cell.
+     * @param widgetHeight The height of the widget.
+     * @return The y position of the widget.
+     */
+    static double widgetY(RowLayoutPane.Position p, double rowHeight, double widgetHeight) {
+        switch (p) {
+            case CENTER:
+                return rowHeight / 2 - widgetHeight / 2;
+            case TOP: case FILL: default:
+                return 0;
+        }
+    }
+
+    /**
+     * Color of a widget. Value is dependent on the Widget's width properties.
+     *
+     * @return The color for the width, or null if none applies and the widget keeps its color.
+     */
+    static Color colorFor(double width, double minWidth, double prefWidth, double maxWidth) {
+        double precision = 0.1; //tough to get "green" on preferred width sometimes as doubles hard to equate on mouse drag.
+        if (Math.abs(width - prefWidth) < precision)
+            return Color.GREEN;
+        else if (Math.abs(width - minWidth) < precision)
+            return Color.RED;
+        else if (Math.abs(width - maxWidth) < precision)
+            return Color.BLUE;
+        else if (width > prefWidth && width < maxWidth)
+            return Color.PURPLE;
+        else if (width > minWidth && width < prefWidth)
+            return Color.ORANGE;
+        return null;
+    }
+
+    long seq() {
+        return seq;
+    }
+
+    int version() {
+        return version;
+    }
+
+    double rowWidth() {
+        return rowWidth;
+    }
+
+    double rowHeight() {
+        return rowHeight;
+    }
+
+    int size() {
+        return x.length;
+    }
+
+    /**
+     * @return An estimate of the memory the snapshot takes: five double arrays and an array of Color references.
+     */
+    long bytes() {
+        return 144 + (long) x.length * (5 * Double.BYTES + 8);
+    }
+
+    double x(int i) {
+        return x[i];
+    }
+
+    double width(int i) {
+        return width[i];
+    }
+
+    double widgetY(int i) {
+        return widgetY[i];
+    }
+
+    double widgetHeight(int i) {
+        return widgetHeight[i];
+    }
+
+    Color color(int i) {
+        return color[i];
+    }
+}
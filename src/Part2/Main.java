@@ -1,6 +1,7 @@
 package Part2;
 
 import Utility.ColorUtility;
+import Utility.SwatchAtlas;
 import javafx.application.Application;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -39,6 +40,7 @@ public class Main extends Application {
         ListView<String> listView = new ListView<>();
         ObservableList<String> items = FXCollections.observableArrayList(ColorUtility.getColorNameList());
         listView.setItems(items);
+        listView.setCellFactory(new SwatchAtlas(ColorUtility.getColorList()).cellFactory()); //items are in the same order.
         //EventHandler for listView items:
         listView.getSelectionModel().selectedItemProperty().addListener(
                 (ov, oldVal, newVal) -> {
@@ -53,8 +55,8 @@ public class Main extends Application {
             //Listen for mouse events on each circle:
             l.setOnMousePressed(event->{
                 Color c = (Color) l.getFill();
-                int index = items.indexOf(getKeyFromValue(Utility.ColorUtility.getColorsMap(),c));
-                listView.getSelectionModel().select(items.get(index)); //Fires the ListView listener to set Label and Color
+                int index = ColorUtility.nearestIndexOf(c); //items are in the same order as the color name list.
+                listView.getSelectionModel().select(index); //Fires the ListView listener to set Label and Color
             });
         }
 
@@ -102,6 +104,7 @@ public class Main extends Application {
     }
     private List<Widget> createWidgets() {
         List<Widget> wList = new ArrayList<>();
+        WidgetStore store = new WidgetStore(5); //one store for all the widgets, see WidgetStore.
 
         Dimension2D lMinSize = new Dimension2D(200, 200);
         Dimension2D lMaxSize = new Dimension2D(275, Double.MAX_VALUE);
@@ -115,24 +118,15 @@ public class Main extends Application {
                 Dimension2D rMaxSize = new Dimension2D(300, 300);
                 Dimension2D rPrefSize = new Dimension2D(200, 200);
 
-        wList.add(new Widget(lMinSize, lMaxSize, lPrefSize));
-            wList.add(new Widget(mMinSize, mMaxSize, mPrefSize));
-                wList.add(new Widget(rMinSize, rMaxSize, rPrefSize));
-                    wList.add(new Widget(rMinSize, rMaxSize, rPrefSize));
-                        wList.add(new Widget(lMinSize, lMaxSize, lPrefSize));
+        wList.add(store.add(lMinSize, lMaxSize, lPrefSize));
+            wList.add(store.add(mMinSize, mMaxSize, mPrefSize));
+                wList.add(store.add(rMinSize, rMaxSize, rPrefSize));
+                    wList.add(store.add(rMinSize, rMaxSize, rPrefSize));
+                        wList.add(store.add(lMinSize, lMaxSize, lPrefSize));
 
         return wList;
     }
 
-    private String getKeyFromValue(Map<String, Color> map, Color value) {
-        for (Map.Entry<String, Color> entry : map.entrySet()) {
-            if (Objects.equals(value, entry.getValue())) {
-                return entry.getKey();
-            }
-        }
-        return null;
-    }
-
     private Menu createMenuItems(String text, int numItems) {
         Menu menu = new Menu(text);
         for (int i = 0; i < numItems; i++) {
@@ -143,7 +137,7 @@ public class Main extends Application {
 
     private List<Circle> createCircles() {
         List<Circle> list = new ArrayList<>();
-        List<Color> randColors = ColorUtility.getColorList();
+        List<Color> randColors = new ArrayList<>(ColorUtility.getColorList()); //the shared list cannot be shuffled.
         Collections.shuffle(randColors);
         for (int i = 0; i < NUM_CIRCLE; i++) {
             list.add(new Circle(CIRCLE_RADIUS));
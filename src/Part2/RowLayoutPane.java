@@ -1,32 +1,129 @@
 package Part2;
 
+import Utility.ColorTransitions;
+import Utility.GraphicsContextRenderer;
+import Utility.LayoutEvent;
+import Utility.PaintEvent;
+import Utility.PaneEvent;
+import Utility.PaneStats;
+import Utility.PulseScheduler;
+import Utility.RenderMode;
+import Utility.Renderer;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Rectangle;
 import javafx.scene.text.FontSmoothingType;
+import javafx.scene.text.Text;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 public class RowLayoutPane extends Pane {
 
     public static enum Position {TOP, CENTER, FILL}
 
     private static final int LINE_WIDTH = 1;
+    private static final double BANNER_WIDTH = 200; //the totals banner is drawn between x = 0 and this value.
+    private static final int MAX_DAMAGE = 64; //beyond this many damaged intervals the whole canvas is redrawn.
+    private double maxLabelReach; //furthest any drawn widget label has reached past the left edge of its cell.
     private int inset = 5;
     private List<RowCell> rCells; //1:1 relationship with Widgets.
+    private final Map<Widget, RowCell> cellMap = new IdentityHashMap<>(); //finds the RowCell of a Widget in O(1).
     private final Canvas canvas;
-    private final GraphicsContext gc;
+    private final Renderer renderer; //draws to the canvas.
+    private final PulseScheduler scheduler = new PulseScheduler(this, this::layoutAndPaint); //one layout per pulse.
+    private final PaneStats stats = new PaneStats(this, "RowLayoutPane"); //timings, published over JMX.
+
+    //Color transitions of the widgets. A cell gets an id when its widget first changes color, ids are handed out
+    //again once no transition runs.
+    private final ColorTransitions transitions = new ColorTransitions(this, this::transitionStep);
+    private final List<RowCell> transitionCells = new ArrayList<>(); //cells by transition id.
+
+    //Told by the widgets of the pane when they change.
+    private final WidgetStore.Owner widgetOwner = new WidgetStore.Owner(this) {
+        @Override
+        void sizeChanged(Widget w) {
+            widgetResized(cellMap.get(w));
+        }
+
+        @Override
+        void colorChanged(Widget w) {
+            RowLayoutPane.this.colorChanged(cellMap.get(w));
+        }
+    };
+
+    //Dirty tracking: layoutChildren() only solves and redraws what has changed since the last pulse.
+    private boolean layoutDirty = true; //widths and positions of the RowCells must be solved again.
+    private boolean paintDirty = true; //the canvas must be redrawn.
+    private boolean inLayout; //the pane is changing its own widgets, ignore their notifications.
+    private double lastWidth = -1, lastHeight = -1; //pane size used for the last layout.
+
+    //Damage tracking: only the x intervals covered by cells that changed since they were drawn are repainted.
+    private boolean fullRepaint = true; //the whole canvas must be redrawn.
+    private final List<RowCell> damagedCells = new ArrayList<>();
+    private double[] damageLo = new double[MAX_DAMAGE], damageHi = new double[MAX_DAMAGE];
+    private int damageCount;
+    private double bannerMin, bannerPref, bannerMax, bannerWidth; //totals shown by the banner when last drawn.
+    private final LabelCache labels = new LabelCache(); //pre-rendered widget labels and banners.
+
+    //Virtualized mode: the canvas shows a viewport of the row starting at scrollOffset, only visible cells are drawn.
+    private boolean virtualized;
+    private double scrollOffset;
+    private Distribution distribution = Distribution.EQUAL; //how space is shared out when the row is resized.
+
+    //Retained mode: each RowCell is a Group of shapes in cellLayer, updated when the cell changes.
+    private RenderMode renderMode = RenderMode.IMMEDIATE;
+    private Group cellLayer; //created when the mode is first used.
+    private Text bannerText;
+    private int nodeStructure = -1; //structureVersion the children of cellLayer were last set for.
+
+    //Async mode: widths, positions and colors are solved on a background thread into LayoutSnapshots.
+    private static ExecutorService layoutExecutor; //shared by all panes, created on first use.
+    private boolean asyncLayout;
+    private int structureVersion; //changes when widgets are added or removed, so the cell indexes change.
+    private volatile long requestedSeq; //sequence number of the newest layout request.
+    private long publishedSeq; //sequence number of the newest snapshot applied to the cells.
+
+    //Layout cache: solved layouts by widget version and pane size. Rows are solved from the preferred widths, so the
+    //same size always gives the same layout and a resize drag going back and forth hits the cache.
+    private static final long DEFAULT_LAYOUT_CACHE_BYTES = 8L << 20;
+    private final LayoutCache layoutCache = new LayoutCache(DEFAULT_LAYOUT_CACHE_BYTES);
+    private long layoutVersion; //changes whenever something the layout depends on changes.
+
+    //Running totals of the widget widths, kept up to date as widgets are added, removed and resized.
+    private double totalMin, totalPref, totalMax, totalActual;
+    private int countAtMin, countAtMax; //number of widgets at their min and max width.
+
+    //Solver input and output, reused between layouts so a relayout does not allocate.
+    private double[] scratchMin = new double[0], scratchPref = new double[0], scratchMax = new double[0];
+    private double[] scratchWidths = new double[0];
+    private double[] scratchPoints = new double[0], scratchPointWeights = new double[0];
 
     /**
      * Creates an empty RowLayoutPane.
      */
     public RowLayoutPane() {
         canvas = new Canvas();
-        gc = canvas.getGraphicsContext2D();
+        renderer = new GraphicsContextRenderer(canvas.getGraphicsContext2D());
         rCells = new ArrayList<>();
         getChildren().add(canvas);
+        //Scrolls the row horizontally in virtualized mode. Plain mouse wheels only report a vertical delta.
+        setOnScroll(event -> {
+            if (virtualized)
+                setScrollOffset(scrollOffset - (event.getDeltaX() != 0 ? event.getDeltaX() : event.getDeltaY()));
+        });
     }
 
     /**
@@ -34,45 +131,77 @@ public class RowLayoutPane extends Pane {
      * @param w Widget to add to the RowLayoutPane.
      */
     public RowLayoutPane(Widget w) {
-        inset = 5;
-        canvas = new Canvas();
-        gc = canvas.getGraphicsContext2D();
-        rCells = new ArrayList<>();
-        getChildren().add(canvas);
+        this();
         addWidget(w);
     }
 
     /**
      * Adds a widget to the RowLayoutPane. Default width of widget is set to preferred size.
-     * The RowLayoutPane grows by the amount of this widget.
+     * The preferred width of the RowLayoutPane grows by the preferred width of this widget.
+     * A widget that is already in the RowLayoutPane is not added again.
      *
      * @param w A Widget that is added to a RowCell
+     * @throws IllegalArgumentException If the Widget is in another pane.
      */
     public void addWidget(Widget w) {
-        RowLayoutPane.RowCell rCell = this.new RowCell(w);
-        rCells.add(rCell);
-        rCell.width = w.getPrefSize().getWidth();
-        this.canvas.setWidth(canvas.getWidth() + w.getWidth());
+        if (attach(w))
+            invalidateLayout();
+    }
+
+    /**
+     * Adds widgets to the RowLayoutPane in the order of the collection, then lays them out once.
+     *
+     * @param widgets The Widgets to add, each one is added to a RowCell.
+     * @throws IllegalArgumentException If a Widget is in another pane. The Widgets before it are added.
+     */
+    public void addWidgets(Collection<Widget> widgets) {
+        boolean added = false;
+        try {
+            for (Widget w : widgets)
+                added |= attach(w);
+        } finally {
+            if (added) //lay out the widgets added before one that is in another pane.
+                invalidateLayout();
+        }
     }
 
     /**
      * Removes a widget from the RowLayoutPane.
-     * The RowLayoutPane shrinks by the amount of this widget.
+     * The preferred width of the RowLayoutPane shrinks by the preferred width of this widget.
      *
      * @param w Widget that is added to a RowCell
      * @return true if the Widget is removed from the container, false otherwise.
      */
     public boolean removeWidget(Widget w) {
-        if (rCells.isEmpty())
+        RowCell rc = cellMap.get(w);
+        if (rc == null)
             return false;
-        for (RowCell rc : rCells) {
-            if (rc.getWidget().equals(w)) {
-                canvas.setWidth(canvas.getWidth()-w.getWidth());
-                rCells.remove(rc); //might be nice to remove widget from rc -> object is garbage.
-                return true;
+        detach(rc);
+        rCells.remove(rc);
+        invalidateLayout();
+        return true;
+    }
+
+    /**
+     * Removes widgets from the RowLayoutPane, then lays out the remaining widgets once.
+     *
+     * @param widgets The Widgets to remove.
+     * @return true if at least one Widget is removed from the container, false otherwise.
+     */
+    public boolean removeWidgets(Collection<Widget> widgets) {
+        boolean removed = false;
+        for (Widget w : widgets) {
+            RowCell rc = cellMap.get(w);
+            if (rc != null) {
+                detach(rc);
+                removed = true;
             }
         }
-        return false;
+        if (removed) {
+            rCells.removeIf(rc -> rc.removed); //single pass instead of one shift per widget.
+            invalidateLayout();
+        }
+        return removed;
     }
 
     /**
@@ -83,13 +212,419 @@ public class RowLayoutPane extends Pane {
      * @return true if widgets Position was set properly, false otherwise.
      */
     public boolean setVerticalPosition(Widget w, Position position) {
-        for (RowCell l : rCells) {
-            if (l.getWidget().equals(w)) {
-                l.setWidget(w, position);
-                return true;
+        RowCell rc = cellMap.get(w);
+        if (rc == null)
+            return false;
+        if (rc.p != position) {
+            rc.setWidget(w, position);
+            invalidateLayout();
+        }
+        return true;
+    }
+
+    /**
+     * Set's the vertical positions of several Widgets, then lays them out once.
+     *
+     * @param positions The Position (TOP,CENTER,FILL) to assign to each Widget.
+     * @return true if every widgets Position was set properly, false if some are not in the RowLayoutPane.
+     */
+    public boolean setVerticalPositions(Map<Widget, Position> positions) {
+        boolean all = true, changed = false;
+        for (Map.Entry<Widget, Position> entry : positions.entrySet()) {
+            RowCell rc = cellMap.get(entry.getKey());
+            if (rc == null) {
+                all = false;
+            } else if (rc.p != entry.getValue()) {
+                rc.setWidget(entry.getKey(), entry.getValue());
+                changed = true;
             }
         }
-        return false;
+        if (changed)
+            invalidateLayout();
+        return all;
+    }
+
+    /**
+     * Places a widget in a new RowCell at the end of the row and starts tracking it.
+     *
+     * @param w The Widget to add.
+     * @return true if the Widget was added, false if it is already in the RowLayoutPane.
+     * @throws IllegalArgumentException If the Widget is in another pane.
+     */
+    private boolean attach(Widget w) {
+        if (cellMap.containsKey(w))
+            return false;
+        RowCell rCell = new RowCell(w);
+        w.attach(widgetOwner);
+        rCells.add(rCell);
+        cellMap.put(w, rCell);
+        structureVersion++;
+        rCell.width = w.getPrefWidth();
+        track(rCell);
+        return true;
+    }
+
+    /**
+     * Stops tracking the widget of a RowCell and marks the cell as removed. The caller removes it from rCells.
+     *
+     * @param rc The RowCell to detach.
+     */
+    private void detach(RowCell rc) {
+        Widget w = rc.getWidget();
+        cellMap.remove(w);
+        structureVersion++;
+        untrack(rc);
+        if (rc.transitionId >= 0) {
+            transitions.cancel(rc.transitionId);
+            transitionCells.set(rc.transitionId, null);
+            rc.transitionId = -1;
+        }
+        w.setShownColor(null);
+        rc.removed = true;
+        if (rc.drawn)
+            addDamage(rc.drawnX, rc.drawnX + Math.max(rc.drawnWidth, rc.drawnLabelReach));
+        w.detach(widgetOwner);
+    }
+
+    /**
+     * The preferred width is the combined preferred width of the widgets, the canvas follows the pane's actual size.
+     */
+    @Override
+    protected double computePrefWidth(double height) {
+        return snappedLeftInset() + totalPrefWidth() + snappedRightInset();
+    }
+
+    /**
+     * Turns virtualized mode on or off. In virtualized mode the canvas is a viewport on the row that can be scrolled
+     * horizontally when the widgets do not fit, and only the cells inside the viewport are drawn.
+     *
+     * @param virtualized true to turn virtualized mode on.
+     */
+    public void setVirtualized(boolean virtualized) {
+        if (this.virtualized == virtualized)
+            return;
+        this.virtualized = virtualized;
+        scrollOffset = 0;
+        fullRepaint = true;
+        invalidatePaint();
+    }
+
+    public boolean isVirtualized() {
+        return virtualized;
+    }
+
+    /**
+     * Scrolls the viewport in virtualized mode. The offset is kept between 0 and the part of the row that does not fit.
+     *
+     * @param offset The x position of the row shown at the left edge of the canvas.
+     */
+    public void setScrollOffset(double offset) {
+        if (!virtualized)
+            return;
+        offset = Math.max(0, Math.min(offset, maxScrollOffset()));
+        if (offset == scrollOffset)
+            return;
+        scrollOffset = offset;
+        if (renderMode == RenderMode.RETAINED) {
+            cellLayer.setTranslateX(-scrollOffset); //the nodes are all there, only the layer moves.
+            return;
+        }
+        fullRepaint = true;
+        invalidatePaint();
+    }
+
+    public double getScrollOffset() {
+        return scrollOffset;
+    }
+
+    /**
+     * @return The largest scroll offset, the width of the row past the right edge of the canvas.
+     */
+    private double maxScrollOffset() {
+        return Math.max(0, totalActualWidth() - canvas.getWidth());
+    }
+
+    /**
+     * Sets how the row shares out space when it grows or shrinks.
+     * The row is solved from the preferred widths of its widgets, so PROPORTIONAL_CURRENT shares space in proportion
+     * to the preferred widths.
+     *
+     * @param distribution EQUAL shares space equally, the PROPORTIONAL_ strategies in proportion to min, max or
+     *                     current width.
+     */
+    public void setDistribution(Distribution distribution) {
+        if (this.distribution == distribution)
+            return;
+        this.distribution = distribution;
+        invalidateLayout();
+    }
+
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * Chooses how the row gets on screen. IMMEDIATE draws the cells into a canvas, RETAINED keeps a Group of shapes
+     * per cell and only updates the Groups of the cells that changed, leaving dirty regions to the scene graph.
+     *
+     * @param mode The RenderMode.
+     */
+    public void setRenderMode(RenderMode mode) {
+        if (renderMode == mode)
+            return;
+        renderMode = mode;
+        if (mode == RenderMode.RETAINED) {
+            if (cellLayer == null) {
+                cellLayer = new Group();
+                cellLayer.setManaged(false);
+                bannerText = new Text(10, 20, "");
+                bannerText.setFill(null);
+                bannerText.setStroke(Color.WHITE);
+                bannerText.setStrokeWidth(LINE_WIDTH);
+                Rectangle clip = new Rectangle(); //the canvas clips at its edges, so does the retained row.
+                clip.widthProperty().bind(widthProperty());
+                clip.heightProperty().bind(heightProperty());
+                setClip(clip);
+            }
+            getChildren().setAll(cellLayer, bannerText);
+        } else {
+            getChildren().setAll(canvas);
+            cellLayer.getChildren().clear();
+            for (RowCell rc : rCells)
+                rc.node = null; //let the shapes go, the canvas does not need them.
+            nodeStructure = -1;
+        }
+        fullRepaint = true;
+        invalidatePaint();
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Turns async layout on or off. With async layout, a change submits the solve to a background thread and the pane
+     * keeps showing the last solved layout until the newest result is ready. Results of older requests that finish
+     * late are dropped.
+     *
+     * @param asyncLayout true to solve layouts off the JavaFX Application Thread.
+     */
+    public void setAsyncLayout(boolean asyncLayout) {
+        this.asyncLayout = asyncLayout;
+        invalidateLayout();
+    }
+
+    public boolean isAsyncLayout() {
+        return asyncLayout;
+    }
+
+    /**
+     * Sets how much memory the cache of solved layouts may take. The pane remembers recent layouts with the size they
+     * were solved for, and reuses one without solving when the pane comes back to the same size, as when a resize
+     * drag goes back and forth. The layouts are the same with the cache on or off. The cache takes up to 8 MB by
+     * default, layouts of rows too large to fit are not cached.
+     *
+     * @param maxBytes The estimated size of the cached layouts in bytes, 0 to turn the cache off.
+     */
+    public void setLayoutCacheSize(long maxBytes) {
+        layoutCache.setMaxBytes(maxBytes);
+        invalidateLayout();
+    }
+
+    public long getLayoutCacheSize() {
+        return layoutCache.getMaxBytes();
+    }
+
+    /**
+     * @return The number of layouts taken from the cache instead of being solved.
+     */
+    public long getLayoutCacheHits() {
+        return layoutCache.getHits();
+    }
+
+    /**
+     * @return The number of layouts that had to be solved because they were not cached.
+     */
+    public long getLayoutCacheMisses() {
+        return layoutCache.getMisses();
+    }
+
+    /**
+     * @return The estimated memory taken by the cached layouts in bytes.
+     */
+    public long getLayoutCacheBytes() {
+        return layoutCache.getBytes();
+    }
+
+    /**
+     * Marks the widths and positions of the RowCells as out of date and asks for a layout pass.
+     * Ignored while the pane is laying out its own widgets.
+     */
+    private void invalidateLayout() {
+        if (inLayout)
+            return;
+        layoutVersion++; //cached layouts are out of date.
+        layoutDirty = true;
+        requestLayout();
+    }
+
+    /**
+     * Marks the canvas as out of date and asks for a layout pass, which redraws it.
+     * Ignored while the pane is laying out its own widgets.
+     */
+    private void invalidatePaint() {
+        if (inLayout)
+            return;
+        paintDirty = true;
+        requestLayout();
+    }
+
+    /**
+     * Called when a RowCell or its Widget looks different from when it was last drawn.
+     * Queues the cell for repainting and asks for a redraw.
+     *
+     * @param rc The RowCell to repaint.
+     */
+    private void cellChanged(RowCell rc) {
+        if (!rc.damaged) {
+            rc.damaged = true;
+            damagedCells.add(rc);
+        }
+        invalidatePaint();
+    }
+
+    /**
+     * Called when the color of a Widget changes. A widget that is on screen fades from the color it is drawn with to
+     * its new color, see ColorTransitions.
+     *
+     * @param rc The RowCell holding the Widget.
+     */
+    private void colorChanged(RowCell rc) {
+        Widget w = rc.getWidget();
+        Color from = w.isTransitioning() ? w.getShownColor() : rc.drawn ? rc.drawnColor : null;
+        if (from != null) {
+            if (transitions.getActiveCount() == 0 && !transitionCells.isEmpty()) {
+                for (RowCell c : transitionCells)
+                    if (c != null)
+                        c.transitionId = -1;
+                transitionCells.clear();
+            }
+            if (rc.transitionId < 0) {
+                rc.transitionId = transitionCells.size();
+                transitionCells.add(rc);
+            }
+            w.setShownColor(from);
+            transitions.start(rc.transitionId, from, w.getWidgetColor());
+        }
+        cellChanged(rc);
+    }
+
+    /**
+     * Receives the color a widget transition has reached and queues its cell for repainting.
+     */
+    private void transitionStep(int id, Color c) {
+        RowCell rc = transitionCells.get(id);
+        if (rc == null)
+            return;
+        Widget w = rc.getWidget();
+        w.setShownColor(c.equals(w.getWidgetColor()) ? null : c);
+        cellChanged(rc);
+    }
+
+    /**
+     * @return The transitions of the widget colors, to change their duration.
+     */
+    public ColorTransitions getColorTransitions() {
+        return transitions;
+    }
+
+    /**
+     * Adds an x interval of the canvas to the area to repaint.
+     * Falls back to a full repaint when too many intervals are queued.
+     *
+     * @param lo The left edge of the interval.
+     * @param hi The right edge of the interval.
+     */
+    private void addDamage(double lo, double hi) {
+        if (fullRepaint)
+            return;
+        if (damageCount == MAX_DAMAGE) {
+            fullRepaint = true;
+            return;
+        }
+        damageLo[damageCount] = lo;
+        damageHi[damageCount] = hi;
+        damageCount++;
+    }
+
+    /**
+     * Called when a Widget's size constraints or actual size change. Updates the running totals and, unless the
+     * pane made the change itself, asks for a new layout.
+     *
+     * @param rc The RowCell holding the resized Widget.
+     */
+    private void widgetResized(RowCell rc) {
+        untrack(rc);
+        track(rc);
+        invalidateLayout();
+    }
+
+    /**
+     * Records the current widths of the RowCell's widget and adds them to the running totals.
+     *
+     * @param rc The RowCell to add to the totals.
+     */
+    private void track(RowCell rc) {
+        Widget w = rc.getWidget();
+        rc.minWidth = w.getMinWidth();
+        rc.prefWidth = w.getPrefWidth();
+        rc.maxWidth = w.getMaxWidth();
+        rc.actualWidth = w.getWidth();
+        rc.atMin = rc.actualWidth == rc.minWidth;
+        rc.atMax = rc.actualWidth == rc.maxWidth;
+        totalMin += rc.minWidth;
+        totalPref += rc.prefWidth;
+        totalMax += rc.maxWidth;
+        totalActual += rc.actualWidth;
+        if (rc.atMin)
+            countAtMin++;
+        if (rc.atMax)
+            countAtMax++;
+    }
+
+    /**
+     * Removes the widths last recorded for the RowCell from the running totals.
+     *
+     * @param rc The RowCell to remove from the totals.
+     */
+    private void untrack(RowCell rc) {
+        totalMin -= rc.minWidth;
+        totalPref -= rc.prefWidth;
+        totalMax -= rc.maxWidth;
+        totalActual -= rc.actualWidth;
+        if (rc.atMin)
+            countAtMin--;
+        if (rc.atMax)
+            countAtMax--;
+    }
+
+    /**
+     * Recomputes the running totals from the widths recorded in each RowCell.
+     * Called once per layout so rounding errors from the incremental updates do not build up.
+     */
+    private void resyncTotals() {
+        totalMin = totalPref = totalMax = totalActual = 0;
+        countAtMin = countAtMax = 0;
+        for (RowCell rc : rCells) {
+            totalMin += rc.minWidth;
+            totalPref += rc.prefWidth;
+            totalMax += rc.maxWidth;
+            totalActual += rc.actualWidth;
+            if (rc.atMin)
+                countAtMin++;
+            if (rc.atMax)
+                countAtMax++;
+        }
     }
 
     /**
@@ -98,11 +633,7 @@ public class RowLayoutPane extends Pane {
      * @return true if all widgets are at maximum width, false otherwise.
      */
     boolean widgetsMaxed() {
-        for (RowCell rc : rCells) {
-            if (rc.getWidget().getWidth() != rc.getWidget().getMaxWidth())
-                return false;
-        }
-        return true;
+        return countAtMax == rCells.size();
     }
 
     /**
@@ -111,297 +642,542 @@ public class RowLayoutPane extends Pane {
      * @return true if all widgets are at minimum width, false otherwise.
      */
     boolean widgetsMin() {
-        for (RowCell rc : rCells) {
-            if (rc.getWidget().getWidth() != rc.getWidget().getMinWidth())
-                return false;
+        return countAtMin == rCells.size();
+    }
+
+    /**
+     * @return The combined min width of the widgets.
+     */
+    double totalMinWidth() {
+        return totalMin;
+    }
+
+    /**
+     * @return The combined preferred width of the widgets.
+     */
+    double totalPrefWidth() {
+        return totalPref;
+    }
+
+    /**
+     * @return The combined max width of the widgets.
+     */
+    double totalMaxWidth() {
+        return totalMax;
+    }
+
+    /**
+     * @return The combined actual width of the widgets.
+     */
+    double totalActualWidth() {
+        return totalActual;
+    }
+
+    /**
+     * Redraws the parts of the canvas that changed since the last paint, or the whole canvas when needed.
+     *
+     * @param gc The Renderer used for drawing to the main canvas.
+     */
+    private void paint(Renderer gc) {
+        if (totalMinWidth() != bannerMin || totalPrefWidth() != bannerPref || totalMaxWidth() != bannerMax
+                || canvas.getWidth() != bannerWidth)
+            addDamage(scrollOffset, scrollOffset + BANNER_WIDTH);
+        for (RowCell rc : damagedCells) {
+            if (rc.removed)
+                continue;
+            //the label about to be drawn is measured, it can be wider than the one drawn before.
+            double reach = rc.w.getXPos() - rc.x + rc.w.labelReach(labels);
+            double lo = rc.x, hi = rc.x + Math.max(rc.width, reach);
+            if (rc.drawn) {
+                lo = Math.min(lo, rc.drawnX);
+                hi = Math.max(hi, rc.drawnX + Math.max(rc.drawnWidth, rc.drawnLabelReach));
+            }
+            addDamage(lo, hi);
         }
-        return true;
+
+        if (fullRepaint) {
+            drawRow(gc);
+            for (RowCell rc : rCells)
+                rc.markDrawn();
+        } else {
+            drawDamage(gc);
+            for (RowCell rc : damagedCells)
+                rc.markDrawn();
+        }
+        clearDamage();
+    }
+
+    private void clearDamage() {
+        for (RowCell rc : damagedCells)
+            rc.damaged = false;
+        damagedCells.clear();
+        damageCount = 0;
+        fullRepaint = false;
+    }
+
+    /**
+     * Brings the retained mode nodes up to date: the Groups of the cells that changed since they were last updated,
+     * all of them after a resize, and the children of the cell layer when widgets were added or removed.
+     */
+    private void updateNodes() {
+        if (fullRepaint || nodeStructure != structureVersion) {
+            List<Node> nodes = new ArrayList<>(rCells.size());
+            for (RowCell rc : rCells) {
+                rc.updateNode(inset);
+                rc.markDrawn();
+                nodes.add(rc.node);
+            }
+            cellLayer.getChildren().setAll(nodes);
+            nodeStructure = structureVersion;
+        } else {
+            for (RowCell rc : damagedCells) {
+                if (rc.removed)
+                    continue;
+                rc.updateNode(inset);
+                rc.markDrawn();
+            }
+        }
+        cellLayer.setTranslateX(-scrollOffset);
+        bannerMin = totalMinWidth();
+        bannerPref = totalPrefWidth();
+        bannerMax = totalMaxWidth();
+        bannerWidth = canvas.getWidth();
+        bannerText.setText(LabelCache.bannerText(bannerMin, bannerPref, bannerMax, bannerWidth));
+        clearDamage();
     }
 
     /**
-     * Calculates the total value for a width property of the Widget.
-     *
-     * @param totalType Type of width property.  Valid values are: "actualWidth", "minWidth", "maxWidth", "prefWidth"
-     * @return The combined total width of the width property selected by totalType.
-     */
-    double widgetTotals(String totalType) {
-        double w = 0;
-        for (RowCell rc: rCells) {
-            switch (totalType) {
-                case "actualWidth":
-                    w = w + rc.getWidget().getActualSize().getWidth();
-                    break;
-                case "minWidth":
-                    w = w + rc.getWidget().getMinSize().getWidth();
-                    break;
-                case "maxWidth":
-                    w = w + rc.getWidget().getMaxSize().getWidth();
-                    break;
-                case "prefWidth":
-                    w = w + rc.getWidget().getPrefSize().getWidth();
-                    break;
-                default:
-                    w = 0;
+     * Merges the damaged intervals and repaints each one, clipped to its bounds.
+     * Only the cells overlapping an interval are drawn, found by binary search on their x position.
+     *
+     * @param gc The Renderer used for drawing to the main canvas.
+     */
+    private void drawDamage(Renderer gc) {
+        //insertion sort by left edge, the list is short and mostly sorted already.
+        for (int i = 1; i < damageCount; i++) {
+            double lo = damageLo[i], hi = damageHi[i];
+            int k = i - 1;
+            while (k >= 0 && damageLo[k] > lo) {
+                damageLo[k + 1] = damageLo[k];
+                damageHi[k + 1] = damageHi[k];
+                k--;
             }
+            damageLo[k + 1] = lo;
+            damageHi[k + 1] = hi;
+        }
+        //intervals are in row coordinates, the canvas shows the row from scrollOffset.
+        double h = canvas.getHeight();
+        double viewLo = scrollOffset, viewHi = scrollOffset + canvas.getWidth();
+        int i = 0;
+        while (i < damageCount) {
+            double lo = Math.max(viewLo, damageLo[i]), hi = damageHi[i];
+            for (i++; i < damageCount && damageLo[i] <= hi; i++)
+                hi = Math.max(hi, damageHi[i]);
+            hi = Math.min(hi, viewHi);
+            if (hi <= lo)
+                continue;
+
+            gc.save();
+            gc.translate(-scrollOffset, 0);
+            gc.clipRect(lo, 0, hi - lo, h);
+            gc.clearRect(lo, 0, hi - lo, h);
+            for (int c = firstCellAt(lo - maxLabelReach); c < rCells.size() && rCells.get(c).x < hi; c++)
+                drawCell(gc, rCells.get(c));
+            gc.translate(scrollOffset, 0);
+            if (lo - scrollOffset < BANNER_WIDTH)
+                drawBanner(gc);
+            gc.restore();
+        }
+    }
+
+    /**
+     * Draws a RowCell and keeps track of how far widget labels reach past their cells, so damaged intervals and
+     * the cells drawn into them cover labels of any width.
+     */
+    private void drawCell(Renderer gc, RowCell rc) {
+        rc.draw(gc, inset, labels);
+        maxLabelReach = Math.max(maxLabelReach, rc.labelReach);
+    }
+
+    /**
+     * Finds the first RowCell whose right edge is past x. RowCells are laid out left to right.
+     *
+     * @param x The x position on the canvas.
+     * @return The index of the first RowCell ending after x, or the number of cells if there is none.
+     */
+    private int firstCellAt(double x) {
+        int lo = 0, hi = rCells.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            RowCell rc = rCells.get(mid);
+            if (rc.x + rc.width <= x)
+                lo = mid + 1;
+            else
+                hi = mid;
         }
-        return w;
+        return lo;
     }
 
     /**
      * Draws the RowCells and their associated contents to the canvas.
      * Draws textual information about the width of the canvas and the Widgets.
      *
-     * @param gc The GraphicsContext used for drawing to the main canvas.
+     * @param gc The Renderer used for drawing to the main canvas, or to a buffer in memory.
      */
-    private void drawRow(GraphicsContext gc) {
+    private void drawRow(Renderer gc) {
         gc.clearRect(0,0,canvas.getWidth(),canvas.getHeight()); //clear before redraw
-        for (RowCell rc : rCells) {
-            rc.draw(gc);
+        if (virtualized) {
+            //only the cells inside the viewport, starting with the first one whose label can reach into it.
+            double viewHi = scrollOffset + canvas.getWidth();
+            gc.save();
+            gc.translate(-scrollOffset, 0);
+            for (int c = firstCellAt(scrollOffset - maxLabelReach); c < rCells.size() && rCells.get(c).x < viewHi; c++)
+                drawCell(gc, rCells.get(c));
+            gc.restore();
+        } else {
+            for (RowCell rc : rCells) {
+                drawCell(gc, rc);
+            }
+        }
+        drawBanner(gc);
+    }
+
+    /**
+     * Draws textual information about the width of the canvas and the Widgets.
+     *
+     * @param gc The Renderer used for drawing to the main canvas.
+     */
+    private void drawBanner(Renderer gc) {
+        bannerMin = totalMinWidth();
+        bannerPref = totalPrefWidth();
+        bannerMax = totalMaxWidth();
+        bannerWidth = canvas.getWidth();
+        LabelCache.Label label = labels.getBannerLabel(bannerMin, bannerPref, bannerMax, bannerWidth);
+        if (label != null) {
+            label.draw(gc, 10, 20);
+            return;
         }
         gc.setFontSmoothingType(FontSmoothingType.LCD);
         gc.setStroke(Color.WHITE);
         gc.setLineWidth(LINE_WIDTH);
-        gc.strokeText("\nMin Width: " + widgetTotals("minWidth")
-                + "\nPref Width: " + widgetTotals("prefWidth")
-                + "\nMax Width: " + widgetTotals("maxWidth")
-                + "\nWidth: " + canvas.getWidth(), 10,20 );
+        gc.strokeText(LabelCache.bannerText(bannerMin, bannerPref, bannerMax, bannerWidth), 10,20 );
     }
 
     /**
      * Sets the width dimensions of the rowCells. Grows and shrinks appropriately.
-     *NOTE: RowCell method layoutChildren() is called in the grow(z) and shrink(z) helper methods.
+     * when the window gets wider, all widgets grow equally until they reach their max width.
+     * if all widgets are at their max width, the canvas extends but the widgets do not change.
+     * if all widgets are at their min width and the window gets smaller, the window should clip at the right side.
+     * when the window gets taller, only widgets with position of FILL change height.
+     *NOTE: The widths are solved in one pass by WidthSolver, then RowCell method layoutChildren() is called in solveRow().
+     * Nothing is solved or redrawn unless the pane size, the widgets or their constraints changed since the last call.
+     * In virtualized mode a row wider than the pane can be scrolled instead of clipping at the right side.
+     * The work runs once per pulse after the layout pass, however many times layoutChildren() is called.
      */
     @Override
     public void layoutChildren() {
-        double diff;
-        canvas.setWidth(this.getWidth());
-        canvas.setHeight(this.getHeight());
-        diff = canvas.getWidth() - widgetTotals("actualWidth");
-
-        //Growing:
-        if ( diff >= 0) {
-            grow(diff);
-
-        //Shrinking:
-        }else if (diff < 0) {
-            shrink(diff);
-            //If we maximize and then minimize the widgets may be at minimum size, but the canvas may still be larger since
-            //it was not dragged.  Regrow with current widths & snap to clip.
-            if (widgetsMin() && canvas.getWidth() > widgetTotals("minWidth")) {
-               diff = canvas.getWidth() - widgetTotals("minWidth"); //re-calc diff
-               grow(diff);
-            }
-        }
-        drawRow(gc);
+        scheduler.request();
     }
 
     /**
-     * Grows all RowCells proportionately with an increase in canvas size.
-     * when the window gets wider, all widgets grow proportionally until they reach their max width.
-     * if all widgets are at their max width, the canvas extends but the widgets do not change.
-     * when the window gets taller, only widgets with position of FILL change height.
+     * @return The scheduler running this pane's layout and paint, with counts of coalesced requests.
+     */
+    public PulseScheduler getPulseScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The layout and paint timings of this pane, also published as an MBean while the pane is in a scene.
+     */
+    public PaneStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Draws the whole row as last laid out, with the banner, to another Renderer. With a RasterRenderer the size of
+     * the pane this renders a layout without a JavaFX toolkit. The pane's canvas is not changed.
      *
-     * @param z Double representing the change in canvas width.
+     * @param r The Renderer to draw to.
      */
-    private void grow(double z) {
-        double w = 0; //the width of the current RowCell. Used to set the next RowCell's horizontal position.
-        double equalProp; //ratio value for calculating width proportions.
-        double itemsRem; //items remaining in the list.
-        itemsRem = rCells.size();
-        if (itemsRem > 0) {
-            equalProp = z / itemsRem; //+ve growing, or 0
-        }else
-          return;
+    public void render(Renderer r) {
+        drawRow(r);
+    }
 
-        for (RowCell rc : rCells) {
-            rc.height = canvas.getHeight();
-
-            //max width, no change. Change equalProp ratio for remaining items.
-            if (rc.width == rc.getWidget().getMaxWidth()) {
-                //z doesn't change
-                itemsRem--;
-                if (itemsRem > 0)
-                    equalProp = z / itemsRem;
-
-            //below maxWidth but not enough room to grow fully. Expand to max and change equalProp ratio for remaining space/items.
-            }else if (rc.width < rc.getWidget().getMaxWidth() && rc.width + equalProp > rc.getWidget().getMaxWidth()) {
-                    //z will get smaller
-                    z = z - (rc.getWidget().getMaxWidth() - rc.width);
-                    rc.width = rc.getWidget().getMaxWidth();
-                    itemsRem--;
-                    if (itemsRem>0)
-                        equalProp = z/itemsRem;
-
-            //below maxWidth and enough size to grow. Grow.
-            }else if (rc.width < rc.getWidget().getMaxWidth()){
-                    rc.width = rc.width+equalProp;
-                    itemsRem--;
+    /**
+     * Solves and paints the row for the latest pane size and widgets. Run by the PulseScheduler.
+     */
+    private void layoutAndPaint() {
+        long allocated = PaneStats.threadAllocatedBytes();
+        if (this.getWidth() != lastWidth || this.getHeight() != lastHeight) {
+            lastWidth = this.getWidth();
+            lastHeight = this.getHeight();
+            layoutDirty = true;
+            fullRepaint = true;
+        }
+        if (layoutDirty) {
+            LayoutEvent event = LayoutEvent.enabled() ? new LayoutEvent() : null;
+            if (event != null)
+                event.begin();
+            long start = System.nanoTime(), hits = layoutCache.getHits();
+            canvas.setWidth(lastWidth);
+            canvas.setHeight(lastHeight);
+            layoutDirty = false;
+            if (asyncLayout) {
+                submitLayout(); //painted by the next pulse after the snapshot is published.
+            } else {
+                inLayout = true;
+                try {
+                    solveRow(canvas.getWidth());
+                } finally {
+                    inLayout = false;
+                }
+                rowLaidOut();
+            }
+            stats.recordLayout(System.nanoTime() - start);
+            if (event != null && event.shouldCommit()) {
+                describe(event);
+                event.strategy = distribution + (asyncLayout ? ", async" : ", sync");
+                event.cacheHit = layoutCache.getHits() != hits;
+                event.commit();
             }
-
-            //set the position of this element and increment for next item. layout RowCell.
-            rc.setPosition(w,0);
-            w += rc.width;
-            rc.layoutChildren();
         }
+        if (paintDirty) {
+            PaintEvent event = PaintEvent.enabled() ? new PaintEvent() : null;
+            if (event != null)
+                event.begin();
+            long start = System.nanoTime();
+            boolean full = fullRepaint;
+            if (renderMode == RenderMode.RETAINED) {
+                updateNodes();
+            } else {
+                labels.updateScale(this);
+                paint(renderer);
+            }
+            paintDirty = false;
+            stats.recordPaint(System.nanoTime() - start);
+            if (event != null && event.shouldCommit()) {
+                describe(event);
+                event.strategy = (full ? "full" : "damage") + (virtualized ? ", virtualized" : "")
+                        + (renderMode == RenderMode.RETAINED ? ", retained" : "");
+                event.commit();
+            }
+        }
+        stats.recordFrame(allocated < 0 ? -1 : PaneStats.threadAllocatedBytes() - allocated);
+    }
+
+    private void describe(PaneEvent event) {
+        event.pane = "RowLayoutPane";
+        event.widgetCount = rCells.size();
+        event.canvasWidth = canvas.getWidth();
+        event.canvasHeight = canvas.getHeight();
     }
 
     /**
-     * Shrinks all RowCells proportionately with a decrease in canvas size.
-     * if all widgets are at their min width and the window gets smaller, the window should clip at the right side
-     * when the window gets taller, only widgets with position of FILL change height.
-     *
-     * @param z Double representing the change in canvas width.
+     * Called after the cells have new positions and sizes. Schedules a paint and keeps the viewport on the row.
      */
-    private void shrink(double z) {
-        double w = 0; //the width of the current RowCell. Used to set the next RowCell's horizontal position.
-        double equalProp; //ratio value for calculating width proportions.
-        double itemsRem; //items remaining in the list.
-        itemsRem=rCells.size();
-        if (itemsRem > 0) {
-            equalProp = z / itemsRem; //-ve shrinking
-        }else
-            return;
+    private void rowLaidOut() {
+        paintDirty = true;
+        if (scrollOffset > maxScrollOffset()) {
+            scrollOffset = maxScrollOffset(); //the row got shorter, keep the viewport on it.
+            fullRepaint = true;
+        }
+    }
 
-        for (RowCell rc : rCells) {
-            rc.height = canvas.getHeight();
-
-            //min width no change. Change equalProp ratio for remaining items.
-            if (rc.width == rc.getWidget().getMinWidth()) {
-                //z doesn't change
-                itemsRem--;
-                if (itemsRem > 0)
-                    equalProp = z / itemsRem;
-
-            //above minWidth but not enough room to shrink fully. Shrink to min. Change equalProp ratio for remaining space/items.
-            }else if (rc.width > rc.getWidget().getMinWidth() && rc.width + equalProp < rc.getWidget().getMinWidth()) {
-                //z will get smaller
-                z -= Math.abs(rc.getWidget().getMinWidth() - rc.width);
-                rc.width = rc.getWidget().getMinWidth();
-                itemsRem--;
-                if (itemsRem>0)
-                    equalProp = z/itemsRem;
-
-            //below minWidth and enough room to shrink. Shrink.
-            }else if (rc.width > rc.getWidget().getMinWidth()){
-                rc.width += equalProp;
-                itemsRem--;
+    /**
+     * Copies the widget constraints and submits a solve of the whole row to the background thread.
+     * Must be called on the JavaFX Application Thread.
+     */
+    private void submitLayout() {
+        double rowWidth = canvas.getWidth(), rowHeight = canvas.getHeight();
+        long version = layoutVersion;
+        if (layoutCache.isEnabled()) {
+            LayoutSnapshot cached = layoutCache.get(version, rowWidth, rowHeight);
+            if (cached != null) {
+                publishedSeq = ++requestedSeq; //results of solves still in flight are now stale.
+                inLayout = true;
+                try {
+                    applySnapshot(cached);
+                } finally {
+                    inLayout = false;
+                }
+                rowLaidOut();
+                return;
             }
-            //set the position of this element and increment for next item. layout RowCell.
-            rc.setPosition(w,0);
-            w += rc.width;
-            rc.layoutChildren();
         }
+        long seq = ++requestedSeq;
+        Supplier<LayoutSnapshot> task = layoutTask(seq, rowWidth, rowHeight);
+        executor().execute(() -> {
+            if (seq < requestedSeq)
+                return; //a newer request is already queued.
+            LayoutSnapshot snapshot = task.get();
+            Platform.runLater(() -> publish(snapshot, version));
+        });
     }
 
     /**
-     * Never used, for reference only.
-     * This method grows Widgets proportionately based on propVal.
+     * Copies the widget constraints so the layout can be solved later, on any thread.
      *
-     * @param z - double representing the change in Canvas width.
-     * @param propVal - valid values are 0 or 1 or 2.  0 sizes widget based on it's minWidth.  1 sizes widget based on it's maxWidth. 2 current width.
+     * @param seq The order in which the layout was requested.
+     * @return The solve, to run once.
      */
-    private void growProp(double z, int propVal) {
-        double w = 0; //the width of the current RowCell. Used to set the next RowCell's horizontal position.
-        double propW = 0; //ratio value for calculating width proportions.
-        double totalWidth = widgetTotals("actualWidth");
-
-        for (RowCell rc : rCells) {
-            rc.height = canvas.getHeight();
-            switch(propVal) {
-                case 0: default:
-                    if(totalWidth > 0)
-                        propW = (rc.getWidget().getMinWidth()/totalWidth)*z;
-                    break;
-                case 1:
-                    if(totalWidth > 0)
-                        propW = (rc.getWidget().getMaxWidth()/totalWidth)*z;
-                    break;
-                case 2:
-                    if(totalWidth > 0)
-                        propW = (rc.width/totalWidth)*z;
-                    break;
-            }
+    private Supplier<LayoutSnapshot> layoutTask(long seq, double rowWidth, double rowHeight) {
+        int n = rCells.size();
+        double[] min = new double[n], pref = new double[n], max = new double[n], heights = new double[n];
+        Position[] positions = new Position[n];
+        for (int i = 0; i < n; i++) {
+            RowCell rc = rCells.get(i);
+            min[i] = rc.minWidth;
+            pref[i] = rc.prefWidth;
+            max[i] = rc.maxWidth;
+            heights[i] = rc.getWidget().getHeight();
+            positions[i] = rc.p;
+        }
+        int version = structureVersion;
+        Distribution distribution = this.distribution;
+        return () -> LayoutSnapshot.solve(seq, version, rowWidth, rowHeight,
+                min, pref, max, heights, positions, distribution);
+    }
 
-            //max width, no change. Decrement totalWidth.
-            if (rc.width == rc.getWidget().getMaxWidth()) {
-                //z doesn't change
-                totalWidth -= rc.getWidget().getMaxWidth();
+    private static synchronized ExecutorService executor() {
+        if (layoutExecutor == null) {
+            layoutExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "RowLayoutPane-layout");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return layoutExecutor;
+    }
 
-            //below maxWidth but not enough growth room. Expand to max & decrement totalWidth.
-            }else if (rc.width < rc.getWidget().getMaxWidth() && rc.width + propW > rc.getWidget().getMaxWidth()) {
-                //totalWidth remaining is now smaller.
-                totalWidth -= (rc.getWidget().getMaxWidth() - rc.width);
-                rc.width = rc.getWidget().getMaxWidth();
+    /**
+     * Applies a snapshot solved in the background to the RowCells and their widgets, unless a newer snapshot was
+     * already applied or widgets were added or removed since it was requested.
+     *
+     * @param snapshot The solved layout.
+     * @param version The layout version the snapshot was requested for, to cache it under.
+     */
+    private void publish(LayoutSnapshot snapshot, long version) {
+        if (snapshot.seq() <= publishedSeq || snapshot.version() != structureVersion)
+            return; //stale, a newer request is in flight or done.
+        publishedSeq = snapshot.seq();
+        inLayout = true;
+        try {
+            applySnapshot(snapshot);
+        } finally {
+            inLayout = false;
+        }
+        layoutCache.put(version, snapshot.rowWidth(), snapshot.rowHeight(), snapshot);
+        rowLaidOut();
+        requestLayout(); //paints on the next pulse.
+    }
 
-            //below maxWidth and enough size to grow.
-            }else if (rc.width < rc.getWidget().getMaxWidth()){
-                rc.width = rc.width+propW;
+    /**
+     * Sets the positions and sizes of the RowCells and their widgets from a snapshot and queues the cells that
+     * changed for repainting.
+     */
+    private void applySnapshot(LayoutSnapshot snapshot) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            RowCell rc = rCells.get(i);
+            rc.apply(snapshot, i);
+            if (!rc.damaged && rc.changedSinceDrawn()) {
+                rc.damaged = true;
+                damagedCells.add(rc);
             }
-            rc.setPosition(w,0);
-            w += rc.width;
-            rc.layoutChildren();
         }
+        resyncTotals();
     }
 
     /**
-     * Never used, for reference only.
-     * This method shrinks Widgets proportionately based on propVal input.
+     * Solves the widths of all RowCells for the given row width and lays them out left to right.
+     * Space freed by a widget reaching its min or max width is shared by every other widget, regardless of order,
+     * according to the pane's Distribution.
+     *
+     * The widths are solved from the preferred widths, so a row width always gives the same layout. With the layout
+     * cache on, a layout solved before for this size is reused instead.
      *
-     * @param z - double representing the change in Canvas width.
-     * @param propVal - valid values are 0 or 1 or 2.  0 sizes widget based on it's minWidth.  1 sizes widget based on it's maxWidth, 2 current width.
+     * @param rowWidth Double representing the width to fill.
      */
-    private void shrinkProp(double z, int propVal) {
-        double w = 0; //the width of the current RowCell. Used to set the next RowCell's horizontal position.
-        double propW = 0; //ratio value for calculating width proportions.
-        double totalWidth = widgetTotals("actualWidth");
-
-        for (RowCell rc : rCells) {
-            rc.height = canvas.getHeight();
-            switch(propVal) {
-                case 0: default:
-                    if(totalWidth > 0)
-                        propW = (rc.getWidget().getMinWidth()/totalWidth)*z;
-                    break;
-               case 1:
-                   if(totalWidth > 0)
-                       propW = (rc.getWidget().getMaxWidth() / totalWidth)*z;
-                       break;
-                case 2:
-                    if(totalWidth > 0)
-                        propW = (rc.width/totalWidth)*z;
-                    break;
+    private void solveRow(double rowWidth) {
+        double rowHeight = canvas.getHeight();
+        if (layoutCache.isEnabled()) {
+            LayoutSnapshot snapshot = layoutCache.get(layoutVersion, rowWidth, rowHeight);
+            if (snapshot != null) {
+                applySnapshot(snapshot);
+                return;
             }
+        }
+        int n = copyInputs();
+        double[] widths = scratchWidths;
+        WidthSolver.solve(scratchMin, scratchPref, scratchMax, null, rowWidth, 0, n, widths, distribution,
+                scratchPoints, scratchPointWeights);
 
-            //min width, no change. Decrement totalWidth.
-            if (rc.width == rc.getWidget().getMinWidth()) {
-                //z doesn't change
-                totalWidth -= rc.getWidget().getMinWidth();
-
-            //above minWidth but not enough to shrink fully. Shrink to minWidth and decrement totalWidth.
-            }else if (rc.width > rc.getWidget().getMinWidth() && rc.width + propW < rc.getWidget().getMinWidth()) {
-                //totalWidth remaining is now smaller.
-                totalWidth -= Math.abs(rc.width - rc.getWidget().getMinWidth());
-                rc.width = rc.getWidget().getMinWidth();
-
-            //above minWidth enough room to shrink.
-            }else if (rc.width > rc.getWidget().getMinWidth()){
-                rc.width = rc.width+propW;
-            }
+        double w = 0; //the width of the current RowCell. Used to set the next RowCell's horizontal position.
+        for (int i = 0; i < n; i++) {
+            RowCell rc = rCells.get(i);
+            rc.height = rowHeight;
+            rc.width = widths[i];
             rc.setPosition(w,0);
             w += rc.width;
             rc.layoutChildren();
+            if (!rc.damaged && rc.changedSinceDrawn()) {
+                rc.damaged = true;
+                damagedCells.add(rc);
+            }
         }
+        resyncTotals();
+        if (layoutCache.isEnabled())
+            layoutCache.put(layoutVersion, rowWidth, rowHeight,
+                    LayoutSnapshot.capture(structureVersion, rowWidth, rowHeight, rCells, n));
+    }
+
+    /**
+     * Copies the width constraints of the RowCells into the solver's scratch arrays, growing them when needed.
+     *
+     * @return The number of cells.
+     */
+    private int copyInputs() {
+        int n = rCells.size();
+        if (scratchMin.length < n) {
+            int capacity = Math.max(n, scratchMin.length * 2);
+            scratchMin = new double[capacity];
+            scratchPref = new double[capacity];
+            scratchMax = new double[capacity];
+            scratchWidths = new double[capacity];
+            scratchPoints = new double[capacity];
+            scratchPointWeights = new double[capacity];
+        }
+        for (int i = 0; i < n; i++) {
+            RowCell rc = rCells.get(i);
+            scratchMin[i] = rc.minWidth;
+            scratchPref[i] = rc.prefWidth;
+            scratchMax[i] = rc.maxWidth;
+        }
+        return n;
     }
 
     /********************************************************************************************************
-    INNER CLASS:  RowCell - Holds Widgets and positions them accordingly.
+    NESTED CLASS:  RowCell - Holds Widgets and positions them accordingly.
     ********************************************************************************************************/
 
-    private class RowCell {
+    static class RowCell {
         Widget w;
         Position p;
         double x, y;
         double height, width;
+        double minWidth, prefWidth, maxWidth, actualWidth; //widget widths last added to the pane's running totals.
+        boolean atMin, atMax;
+        boolean removed; //set when the widget is removed from the pane.
+        boolean damaged; //queued for repainting.
+        int transitionId = -1; //id of the cell's color transitions, -1 if it has none.
+        Group node; //the cell's shapes in retained mode, null in immediate mode.
+
+        //What the cell looked like when it was last drawn.
+        boolean drawn;
+        double labelReach; //how far the widget's label reached past x when the cell was last drawn.
+        double drawnX, drawnWidth, drawnHeight, drawnLabelReach;
+        double drawnWidgetY, drawnWidgetHeight;
+        double drawnMin, drawnPref, drawnMax, drawnActual;
+        Color drawnColor;
 
         public RowCell(Widget w) {
             x = y = 0;
@@ -432,23 +1208,9 @@ public class RowLayoutPane extends Pane {
          *
          */
         public void positionWidgetVertical(Position p) {
-            double x,y;
-            switch (p) {
-                case TOP: default:
-                    x = this.x;
-                    y = 0;
-                    break;
-                case CENTER:
-                    x = this.x;
-                    y = this.height / 2 - w.getActualSize().getHeight() / 2;
-                    break;
-                case FILL:
-                    x = this.x;
-                    y = 0;
-                    w.setActualSize(w.getWidth(), this.height);
-                    break;
-            }
-            w.setPos(x, y);
+            if (p == Position.FILL)
+                w.setActualSize(w.getWidth(), this.height);
+            w.setPos(this.x, this.y + LayoutSnapshot.widgetY(p, this.height, w.getHeight()));
         }
 
         /**
@@ -466,15 +1228,100 @@ public class RowLayoutPane extends Pane {
          * Draws a white oval on a gray background to indicate the bounds of this cell, then asks the widget to
          * draw itself.
          *
-         * @param gc The GraphicsContext used for drawing to the canvas.
+         * @param gc The Renderer used for drawing to the canvas.
+         * @param inset The inset of the oval from the bottom right of the cell.
+         * @param labels The cache of rendered widget labels.
          */
-        public void draw(GraphicsContext gc) {
+        public void draw(Renderer gc, int inset, LabelCache labels) {
             gc.setFill(Color.GRAY);
             gc.fillRect(x, y, width, height);
             gc.setStroke(Color.WHITE);
             gc.setLineWidth(LINE_WIDTH);
             gc.strokeOval(x, y, width-inset , height-inset);
-            w.draw(gc); //tell widget to draw itself.
+            labelReach = w.getXPos() - x + w.draw(gc, labels); //tell widget to draw itself.
+        }
+
+        /**
+         * Sets the shapes of the cell's retained mode Group to what draw() paints, creating them the first time.
+         *
+         * @param inset The inset of the oval from the bottom right of the cell.
+         */
+        void updateNode(int inset) {
+            if (node == null) {
+                Rectangle cell = new Rectangle();
+                cell.setFill(Color.GRAY);
+                Ellipse oval = new Ellipse();
+                oval.setFill(null);
+                oval.setStroke(Color.WHITE);
+                oval.setStrokeWidth(LINE_WIDTH);
+                Rectangle widget = new Rectangle();
+                widget.setStroke(Color.BLACK);
+                Text label = new Text();
+                label.setFill(null);
+                label.setStroke(Color.WHITE);
+                node = new Group(cell, oval, widget, new Line(), new Line(), label);
+                node.setAutoSizeChildren(false);
+            }
+            List<Node> shapes = node.getChildren();
+            Rectangle cell = (Rectangle) shapes.get(0);
+            cell.setX(x);
+            cell.setY(y);
+            cell.setWidth(width);
+            cell.setHeight(height);
+            Ellipse oval = (Ellipse) shapes.get(1);
+            oval.setCenterX(x + (width - inset) / 2);
+            oval.setCenterY(y + (height - inset) / 2);
+            oval.setRadiusX(Math.max(0, (width - inset) / 2));
+            oval.setRadiusY(Math.max(0, (height - inset) / 2));
+
+            double wx = w.getXPos(), wy = w.getYPos(), ww = w.getWidth(), wh = w.getHeight();
+            Rectangle widget = (Rectangle) shapes.get(2);
+            widget.setX(wx);
+            widget.setY(wy);
+            widget.setWidth(ww);
+            widget.setHeight(wh);
+            widget.setFill(w.getShownColor());
+            Line down = (Line) shapes.get(3), up = (Line) shapes.get(4);
+            down.setStartX(wx);
+            down.setStartY(wy);
+            down.setEndX(wx + ww);
+            down.setEndY(wy + wh);
+            up.setStartX(wx);
+            up.setStartY(wy + wh);
+            up.setEndX(wx + ww);
+            up.setEndY(wy);
+            Text label = (Text) shapes.get(5);
+            label.setX(wx);
+            label.setY(wy);
+            label.setText(LabelCache.widgetText(w.getMinWidth(), w.getPrefWidth(), w.getMaxWidth(), ww));
+        }
+
+        /**
+         * Records what the cell and its widget look like as they are drawn.
+         */
+        void markDrawn() {
+            drawn = true;
+            drawnX = x;
+            drawnWidth = width;
+            drawnHeight = height;
+            drawnLabelReach = labelReach;
+            drawnWidgetY = w.getYPos();
+            drawnWidgetHeight = w.getHeight();
+            drawnMin = w.getMinWidth();
+            drawnPref = w.getPrefWidth();
+            drawnMax = w.getMaxWidth();
+            drawnActual = w.getWidth();
+            drawnColor = w.getShownColor();
+        }
+
+        /**
+         * @return true if the cell or its widget would not look the same as when the cell was last drawn.
+         */
+        boolean changedSinceDrawn() {
+            return !drawn || drawnX != x || drawnWidth != width || drawnHeight != height
+                    || drawnWidgetY != w.getYPos() || drawnWidgetHeight != w.getHeight()
+                    || drawnMin != w.getMinWidth() || drawnPref != w.getPrefWidth() || drawnMax != w.getMaxWidth()
+                    || drawnActual != w.getWidth() || drawnColor != w.getShownColor();
         }
 
         /**
@@ -494,18 +1341,26 @@ public class RowLayoutPane extends Pane {
          *
          */
         void setColor() {
-            double precision = 0.1; //tough to get "green" on preferred width sometimes as doubles hard to equate on mouse drag.
-            if (Math.abs(w.getWidth() - w.getPrefSize().getWidth()) < precision)
-                w.setWidgetColor(Color.GREEN);
-            else if (Math.abs(w.getWidth() - w.getMinWidth()) < precision)
-                w.setWidgetColor(Color.RED);
-            else if (Math.abs(w.getWidth() - w.getMaxWidth()) < precision)
-                w.setWidgetColor(Color.BLUE);
-            else if (w.getWidth() > w.getPrefSize().getWidth() && w.getWidth() < w.getMaxWidth())
-                w.setWidgetColor(Color.PURPLE);
-            else if (w.getWidth() > w.getMinWidth() && w.getWidth() < w.getPrefSize().getWidth())
-                w.setWidgetColor(Color.ORANGE);
-            }
+            Color c = LayoutSnapshot.colorFor(w.getWidth(), w.getMinWidth(), w.getPrefWidth(), w.getMaxWidth());
+            if (c != null)
+                w.setWidgetColor(c);
+        }
+
+        /**
+         * Sets the position and dimensions of the cell and its widget from a solved layout.
+         *
+         * @param s The solved layout.
+         * @param i The index of this cell in the layout.
+         */
+        void apply(LayoutSnapshot s, int i) {
+            height = s.rowHeight();
+            width = s.width(i);
+            setPosition(s.x(i), 0);
+            w.setActualSize(width, s.widgetHeight(i));
+            w.setPos(x, y + s.widgetY(i));
+            if (s.color(i) != null)
+                w.setWidgetColor(s.color(i));
+        }
     }
 }
 
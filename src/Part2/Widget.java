@@ -1,103 +1,220 @@
 package Part2;
 
+import Utility.Renderer;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Dimension2D;
-import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 
+/**
+ * A Widget with min, max, preferred and actual sizes, a position and a color.
+ * A Widget is a handle on an entry of a WidgetStore, all of its values, and the pane it is in, live in the store's
+ * columns.
+ */
 public class Widget {
-    private double minWidth, minHeight;
-    private double maxWidth, maxHeight;
-    private double prefWidth, prefHeight;
-    private double actualWidth, actualHeight;
-    private double xPos, yPos;
-    final private SimpleObjectProperty<Color> widgetColor = new SimpleObjectProperty<>();
+    private final WidgetStore store;
+    private final int i; //index of this Widget in the store.
 
+    /**
+     * Creates a Widget in a store of its own, which takes several times the memory of a Widget in a shared store.
+     * Use WidgetStore.add(...) to create many Widgets in one store.
+     *
+     * @param minSize The min size of the Widget.
+     * @param maxSize The max size of the Widget.
+     * @param prefSize The preferred size of the Widget, also its initial actual size.
+     */
     public Widget(Dimension2D minSize, Dimension2D maxSize, Dimension2D prefSize) {
-        setPrefSize(prefSize.getWidth(), prefSize.getHeight());
-        setActualSize(prefSize.getWidth(), prefSize.getHeight());
-        setMinSize(minSize.getWidth(), minSize.getHeight());
-        setMaxSize(maxSize.getWidth(), maxSize.getHeight());
-        xPos = yPos = 0;
-        widgetColor.set(Color.GREEN);
+        this(storeOf(minSize, maxSize, prefSize), 0);
+    }
+
+    private static WidgetStore storeOf(Dimension2D minSize, Dimension2D maxSize, Dimension2D prefSize) {
+        WidgetStore store = new WidgetStore(1);
+        store.addEntry(minSize.getWidth(), minSize.getHeight(), maxSize.getWidth(), maxSize.getHeight(),
+                prefSize.getWidth(), prefSize.getHeight());
+        return store;
+    }
+
+    /**
+     * Creates the handle of an entry of a store. Called by WidgetStore.add(...).
+     *
+     * @param store The store holding the values of the Widget.
+     * @param index The index of the Widget in the store.
+     */
+    Widget(WidgetStore store, int index) {
+        this.store = store;
+        this.i = index;
+        store.bind(index, this);
+    }
+
+    /**
+     * @return The WidgetStore holding the values of this Widget.
+     */
+    public WidgetStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return The index of this Widget in its WidgetStore.
+     */
+    public int getIndex() {
+        return i;
     }
 
     public double getWidth() {
-        return actualWidth;
+        return store.actualWidth[i];
     }
 
     public double getHeight() {
-        return actualHeight;
+        return store.actualHeight[i];
     }
 
     public double getMaxWidth() {
-        return maxWidth;
+        return store.maxWidth[i];
     }
 
     public double getMinWidth() {
-        return minWidth;
+        return store.minWidth[i];
     }
 
     public double getMaxHeight() {
-        return maxHeight;
+        return store.maxHeight[i];
     }
 
     public double getMinHeight() {
-        return minHeight;
+        return store.minHeight[i];
+    }
+
+    public double getPrefWidth() {
+        return store.prefWidth[i];
+    }
+
+    public double getPrefHeight() {
+        return store.prefHeight[i];
     }
 
     public void setMinSize(double newMinWidth, double newMinHeight) {
-        minWidth = newMinWidth;
-        minHeight = newMinHeight;
+        if (store.minWidth[i] == newMinWidth && store.minHeight[i] == newMinHeight)
+            return;
+        store.minWidth[i] = newMinWidth;
+        store.minHeight[i] = newMinHeight;
+        fireSizeChanged();
     }
 
     public void setMaxSize(double newMaxWidth, double newMaxHeight) {
-        maxWidth = newMaxWidth;
-        maxHeight = newMaxHeight;
+        if (store.maxWidth[i] == newMaxWidth && store.maxHeight[i] == newMaxHeight)
+            return;
+        store.maxWidth[i] = newMaxWidth;
+        store.maxHeight[i] = newMaxHeight;
+        fireSizeChanged();
     }
 
     public void setPrefSize(double newPrefWidth, double newPrefHeight) {
-        prefWidth =newPrefWidth;
-        prefHeight =newPrefHeight;
+        if (store.prefWidth[i] == newPrefWidth && store.prefHeight[i] == newPrefHeight)
+            return;
+        store.prefWidth[i] = newPrefWidth;
+        store.prefHeight[i] = newPrefHeight;
+        fireSizeChanged();
     }
 
     public void setActualSize(double newWidth, double newHeight) {
-        actualWidth = newWidth;
-        actualHeight = newHeight;
+        if (store.actualWidth[i] == newWidth && store.actualHeight[i] == newHeight)
+            return;
+        store.actualWidth[i] = newWidth;
+        store.actualHeight[i] = newHeight;
+        fireSizeChanged();
     }
 
     public Dimension2D getMinSize() {
-        return new Dimension2D(minWidth,minHeight);
+        return new Dimension2D(store.minWidth[i], store.minHeight[i]);
     }
 
     public Dimension2D getMaxSize() {
-        return new Dimension2D(maxWidth, maxHeight);
+        return new Dimension2D(store.maxWidth[i], store.maxHeight[i]);
     }
 
     public Dimension2D getPrefSize() {
-        return new Dimension2D(prefWidth, prefHeight);
+        return new Dimension2D(store.prefWidth[i], store.prefHeight[i]);
     }
 
     public Dimension2D getActualSize() {
-        return new Dimension2D(actualWidth, actualHeight);
+        return new Dimension2D(store.actualWidth[i], store.actualHeight[i]);
+    }
+
+    /**
+     * Puts the Widget in a pane, which is told when the Widget changes. A Widget is in one pane at a time, like a
+     * Node has one parent, since the pane sets its actual size, position and color.
+     *
+     * @param owner The Owner of the pane holding the Widget.
+     * @throws IllegalArgumentException If the Widget is already in another pane.
+     */
+    void attach(WidgetStore.Owner owner) {
+        WidgetStore.Owner current = store.owners[i];
+        if (current != null && current != owner)
+            throw new IllegalArgumentException("Widget is already in another pane, remove it from that pane first.");
+        store.owners[i] = owner;
+    }
+
+    /**
+     * Takes the Widget out of a pane, which is no longer told when it changes. Does nothing if the Widget is not in
+     * that pane.
+     *
+     * @param owner The Owner of the pane the Widget is removed from.
+     */
+    void detach(WidgetStore.Owner owner) {
+        if (store.owners[i] == owner)
+            store.owners[i] = null;
+    }
+
+    /**
+     * @return The pane holding this Widget, or null if it is in none.
+     */
+    public Pane getPane() {
+        WidgetStore.Owner owner = store.owners[i];
+        return owner == null ? null : owner.pane;
+    }
+
+    private void fireSizeChanged() {
+        WidgetStore.Owner owner = store.owners[i];
+        if (owner != null)
+            owner.sizeChanged(this);
     }
 
     /**
-     * Draws the Widget to canvas with it's associated Color property.
+     * Draws the Widget with it's associated Color property, taking its label from a cache.
      *
-     * @param gc The GraphicsContext used to draw the Widget on a canvas.
+     * @param gc The Renderer used to draw the Widget, on a canvas or in memory.
+     * @param labels The cache of rendered labels, or null to stroke the label text.
      */
-    void draw(GraphicsContext gc) {
-        gc.setFill(getWidgetColor());
+    double draw(Renderer gc, LabelCache labels) {
+        double xPos = store.xPos[i], yPos = store.yPos[i];
+        double actualWidth = store.actualWidth[i], actualHeight = store.actualHeight[i];
+        gc.setFill(getShownColor());
         gc.fillRect(xPos, yPos, actualWidth, actualHeight);
         gc.setLineWidth(1);
         gc.setStroke(Color.BLACK);
         gc.strokeRect(xPos, yPos, actualWidth, actualHeight);
         gc.strokeLine(xPos,yPos,xPos+actualWidth, yPos+actualHeight);
         gc.strokeLine(xPos, yPos+actualHeight,xPos+actualWidth, yPos);
+        double min = store.minWidth[i], pref = store.prefWidth[i], max = store.maxWidth[i];
+        LabelCache.Label label = labels == null ? null : labels.getWidgetLabel(min, pref, max, actualWidth);
+        if (label != null) {
+            label.draw(gc, xPos, yPos);
+            return label.dx + label.width;
+        }
         gc.setStroke(Color.WHITE);
-        gc.strokeText("\nMin Width: " + minWidth + "\nPref Width: " + prefWidth +"\nMax Width: " + maxWidth +
-                "\nWidth: "  + String.format("%.2f", actualWidth), xPos, yPos);
+        gc.strokeText(LabelCache.widgetText(min, pref, max, actualWidth), xPos, yPos);
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param labels The cache of rendered widget labels.
+     * @return How far right of the widget's x position its label reaches, positive infinity if the label cannot be
+     *         rendered and measured.
+     */
+    double labelReach(LabelCache labels) {
+        LabelCache.Label label = labels == null ? null
+                : labels.getWidgetLabel(store.minWidth[i], store.prefWidth[i], store.maxWidth[i], store.actualWidth[i]);
+        return label == null ? Double.POSITIVE_INFINITY : label.dx + label.width;
     }
 
     /**
@@ -106,18 +223,77 @@ public class Widget {
      * @param y double value indicating vertical position on canvas.
      */
     public void setPos(double x, double y) {
-        xPos = x;
-        yPos = y;
+        store.xPos[i] = x;
+        store.yPos[i] = y;
+    }
+
+    /**
+     * @return The horizontal position of the Widget on the canvas.
+     */
+    public double getXPos() {
+        return store.xPos[i];
+    }
+
+    /**
+     * @return The vertical position of the Widget on the canvas.
+     */
+    public double getYPos() {
+        return store.yPos[i];
     }
 
     public final Color getWidgetColor(){
-        return widgetColor.get();
+        return store.indexToColor(store.colorIndex[i]);
     }
 
-    public final void setWidgetColor(Color c){ widgetColor.set(c);}
+    public final void setWidgetColor(Color c){
+        int index = store.colorToIndex(c);
+        if (store.colorIndex[i] == index)
+            return;
+        store.colorIndex[i] = index;
+        SimpleObjectProperty<Color> property = store.getColorProperty(i);
+        if (property != null)
+            property.set(c);
+        WidgetStore.Owner owner = store.owners[i];
+        if (owner != null)
+            owner.colorChanged(this);
+    }
+
+    /**
+     * @return The color the Widget is drawn with: the color a transition has reached, or the widget color.
+     */
+    Color getShownColor() {
+        Color shown = store.getShownColor(i);
+        return shown != null ? shown : getWidgetColor();
+    }
+
+    /**
+     * Sets the color the Widget is drawn with while a color transition runs.
+     *
+     * @param c The color reached by the transition, or null to draw the widget color.
+     */
+    void setShownColor(Color c) {
+        store.setShownColor(i, c);
+    }
+
+    /**
+     * @return true while a color transition decides the color the Widget is drawn with.
+     */
+    boolean isTransitioning() {
+        return store.getShownColor(i) != null;
+    }
 
+    /**
+     * Gets the Widget Color Property. The property is created on first use and kept in sync with the store.
+     * @return SimpleObjectProperty of type Color
+     */
     public SimpleObjectProperty<Color> getWidgetColorProperty() {
-        return widgetColor;
+        SimpleObjectProperty<Color> property = store.getColorProperty(i);
+        if (property == null) {
+            property = new SimpleObjectProperty<>(getWidgetColor());
+            property.addListener((ov, oldVal, newVal) -> setWidgetColor(newVal));
+            store.setColorProperty(i, property);
+        }
+        return property;
     }
 
 
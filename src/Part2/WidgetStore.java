@@ -0,0 +1,259 @@
+package Part2;
+
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Dimension2D;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column storage for Widgets. Each Widget created by a store is a small handle holding only the store and an index,
+ * and its sizes, position, color and the pane it is in live in arrays shared by every Widget of the store.
+ * A store only grows, Widgets are never removed from it.
+ * The columns only pay off for many Widgets in one store. A Widget created on its own gets a store of one entry, which
+ * takes more memory than a plain object would, so create large sets of Widgets from one store.
+ */
+public class WidgetStore {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_SCANNED_COLORS = 8; //palette size from which colors are found through a map.
+
+    /**
+     * A pane holding Widgets, told when one of them changes. A pane has one Owner shared by all of its Widgets.
+     */
+    abstract static class Owner {
+        final Pane pane;
+
+        Owner(Pane pane) {
+            this.pane = pane;
+        }
+
+        /**
+         * Called when a size constraint or the actual size of a Widget changes.
+         */
+        abstract void sizeChanged(Widget w);
+
+        /**
+         * Called when the color of a Widget changes.
+         */
+        abstract void colorChanged(Widget w);
+    }
+
+    //Columns, one value per Widget, read and written by Widget.
+    double[] minWidth, minHeight;
+    double[] maxWidth, maxHeight;
+    double[] prefWidth, prefHeight;
+    double[] actualWidth, actualHeight;
+    double[] xPos, yPos;
+    int[] colorIndex; //index into palette.
+    Owner[] owners; //the pane holding each Widget, null if none.
+    private Widget[] widgets;
+    private int size;
+
+    //Columns only some Widgets use, created the first time one does.
+    private Color[] shownColors; //color drawn while a color transition runs, null otherwise.
+    private SimpleObjectProperty<Color>[] colorProperties; //created when a Widget's property is first asked for.
+
+    //The distinct colors used by the Widgets of this store, usually only a handful, so they are found by a scan.
+    //The map is only built for stores that use many colors.
+    private Color[] palette = new Color[2];
+    private int paletteSize;
+    private Map<Color, Integer> paletteIndex;
+
+    /**
+     * Creates an empty store with room for a few Widgets.
+     */
+    public WidgetStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param capacity The number of Widgets the store can hold before it grows.
+     */
+    public WidgetStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        minWidth = new double[capacity];
+        minHeight = new double[capacity];
+        maxWidth = new double[capacity];
+        maxHeight = new double[capacity];
+        prefWidth = new double[capacity];
+        prefHeight = new double[capacity];
+        actualWidth = new double[capacity];
+        actualHeight = new double[capacity];
+        xPos = new double[capacity];
+        yPos = new double[capacity];
+        colorIndex = new int[capacity];
+        owners = new Owner[capacity];
+        widgets = new Widget[capacity];
+    }
+
+    /**
+     * Adds a Widget to the store. Its actual size is set to its preferred size and its color to green.
+     *
+     * @param minWidth The min width of the Widget.
+     * @param minHeight The min height of the Widget.
+     * @param maxWidth The max width of the Widget.
+     * @param maxHeight The max height of the Widget.
+     * @param prefWidth The preferred width of the Widget.
+     * @param prefHeight The preferred height of the Widget.
+     * @return The Widget handle for the new entry.
+     */
+    public Widget add(double minWidth, double minHeight, double maxWidth, double maxHeight,
+                      double prefWidth, double prefHeight) {
+        return new Widget(this, addEntry(minWidth, minHeight, maxWidth, maxHeight, prefWidth, prefHeight));
+    }
+
+    /**
+     * Adds a Widget to the store. Its actual size is set to its preferred size and its color to green.
+     *
+     * @param minSize The min size of the Widget.
+     * @param maxSize The max size of the Widget.
+     * @param prefSize The preferred size of the Widget.
+     * @return The Widget handle for the new entry.
+     */
+    public Widget add(Dimension2D minSize, Dimension2D maxSize, Dimension2D prefSize) {
+        return add(minSize.getWidth(), minSize.getHeight(), maxSize.getWidth(), maxSize.getHeight(),
+                prefSize.getWidth(), prefSize.getHeight());
+    }
+
+    /**
+     * Adds the values of a Widget to the columns without creating its handle.
+     *
+     * @return The index of the new entry.
+     */
+    int addEntry(double minWidth, double minHeight, double maxWidth, double maxHeight,
+                 double prefWidth, double prefHeight) {
+        if (size == widgets.length)
+            grow();
+        int i = size++;
+        this.minWidth[i] = minWidth;
+        this.minHeight[i] = minHeight;
+        this.maxWidth[i] = maxWidth;
+        this.maxHeight[i] = maxHeight;
+        this.prefWidth[i] = prefWidth;
+        this.prefHeight[i] = prefHeight;
+        this.actualWidth[i] = prefWidth;
+        this.actualHeight[i] = prefHeight;
+        this.colorIndex[i] = colorToIndex(Color.GREEN);
+        return i;
+    }
+
+    /**
+     * Records the handle of an entry. Called by the Widget constructor.
+     */
+    void bind(int index, Widget w) {
+        widgets[index] = w;
+    }
+
+    /**
+     * @return The number of Widgets in the store.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the Widget handle at an index of the store.
+     *
+     * @param index The index of the Widget, from 0 to size()-1.
+     * @return The Widget at that index.
+     */
+    public Widget get(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return widgets[index];
+    }
+
+    /**
+     * Returns the palette index of a color, adding the color to the palette the first time it is used.
+     *
+     * @param c The color.
+     * @return The index of the color in the palette.
+     */
+    int colorToIndex(Color c) {
+        if (paletteIndex != null) {
+            Integer index = paletteIndex.get(c);
+            if (index != null)
+                return index;
+        } else {
+            for (int i = 0; i < paletteSize; i++)
+                if (palette[i].equals(c))
+                    return i;
+        }
+        if (paletteSize == palette.length)
+            palette = Arrays.copyOf(palette, paletteSize * 2);
+        palette[paletteSize] = c;
+        if (paletteIndex == null && paletteSize == MAX_SCANNED_COLORS) {
+            paletteIndex = new HashMap<>();
+            for (int i = 0; i < paletteSize; i++)
+                paletteIndex.put(palette[i], i);
+        }
+        if (paletteIndex != null)
+            paletteIndex.put(c, paletteSize);
+        return paletteSize++;
+    }
+
+    /**
+     * @param index The index of a color in the palette.
+     * @return The color.
+     */
+    Color indexToColor(int index) {
+        return palette[index];
+    }
+
+    Color getShownColor(int index) {
+        return shownColors == null ? null : shownColors[index];
+    }
+
+    void setShownColor(int index, Color c) {
+        if (shownColors == null) {
+            if (c == null)
+                return;
+            shownColors = new Color[widgets.length];
+        }
+        shownColors[index] = c;
+    }
+
+    /**
+     * @return The color property of a Widget, or null if it was never asked for.
+     */
+    SimpleObjectProperty<Color> getColorProperty(int index) {
+        return colorProperties == null ? null : colorProperties[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    void setColorProperty(int index, SimpleObjectProperty<Color> property) {
+        if (colorProperties == null)
+            colorProperties = new SimpleObjectProperty[widgets.length];
+        colorProperties[index] = property;
+    }
+
+    /**
+     * Doubles the capacity of every column.
+     */
+    private void grow() {
+        int capacity = widgets.length * 2;
+        minWidth = Arrays.copyOf(minWidth, capacity);
+        minHeight = Arrays.copyOf(minHeight, capacity);
+        maxWidth = Arrays.copyOf(maxWidth, capacity);
+        maxHeight = Arrays.copyOf(maxHeight, capacity);
+        prefWidth = Arrays.copyOf(prefWidth, capacity);
+        prefHeight = Arrays.copyOf(prefHeight, capacity);
+        actualWidth = Arrays.copyOf(actualWidth, capacity);
+        actualHeight = Arrays.copyOf(actualHeight, capacity);
+        xPos = Arrays.copyOf(xPos, capacity);
+        yPos = Arrays.copyOf(yPos, capacity);
+        colorIndex = Arrays.copyOf(colorIndex, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        widgets = Arrays.copyOf(widgets, capacity);
+        if (shownColors != null)
+            shownColors = Arrays.copyOf(shownColors, capacity);
+        if (colorProperties != null)
+            colorProperties = Arrays.copyOf(colorProperties, capacity);
+    }
+}
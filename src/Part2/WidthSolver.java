@@ -0,0 +1,306 @@
+package Part2;
+
+import java.util.Arrays;
+
+/**
+ * Solves the widths of a row of widgets for a target row width.
+ * Every widget moves from its starting width by the same amount (water filling), or by an amount proportional to a
+ * weight for the proportional Distributions, until it reaches its min or max width, at which point the remaining
+ * space is shared by the widgets that can still change.
+ * Has no JavaFX dependency so it can be used and tested without a running toolkit.
+ * The clamp and share loops are plain scalar loops. The Vector API (jdk.incubator.vector) is an incubator module that
+ * every compile and run configuration of the project would have to add with --add-modules, and the sort that finds
+ * the shift costs more than those loops, so the solver has no vector path.
+ */
+public final class WidthSolver {
+
+    private WidthSolver() {}
+
+    /**
+     * Solves the widths of the row in O(n log n) by sorting the points at which each widget saturates.
+     * If the target is larger than the total max width every widget is at max width, if it is smaller than the total
+     * min width every widget is at min width (the row clips).
+     *
+     * @param min The min widths of the widgets.
+     * @param pref The preferred widths of the widgets. Used as the starting widths when current is null.
+     * @param max The max widths of the widgets.
+     * @param current The current widths of the widgets, or null to solve from the preferred widths.
+     * @param target The width of the row to fill.
+     * @return A new array holding the solved width of each widget.
+     */
+    public static double[] solve(double[] min, double[] pref, double[] max, double[] current, double target) {
+        int n = min.length;
+        double[] out = new double[n];
+        solve(min, pref, max, current, target, n, out);
+        return out;
+    }
+
+    /**
+     * Solves the widths of the first n widgets into out. See solve(double[], double[], double[], double[], double).
+     *
+     * @param min The min widths of the widgets.
+     * @param pref The preferred widths of the widgets. Used as the starting widths when current is null.
+     * @param max The max widths of the widgets.
+     * @param current The current widths of the widgets, or null to solve from the preferred widths.
+     * @param target The width of the row to fill.
+     * @param n The number of widgets to solve.
+     * @param out Receives the solved widths, must hold at least n values. Must not be one of the input arrays.
+     */
+    public static void solve(double[] min, double[] pref, double[] max, double[] current, double target,
+                             int n, double[] out) {
+        solve(min, pref, max, current, target, 0, n, out);
+    }
+
+    /**
+     * Solves the widths of the widgets from index from (inclusive) to index to (exclusive) into the same indexes
+     * of out, sharing space equally. Used to solve several rows stored in the same arrays.
+     *
+     * @param min The min widths of the widgets.
+     * @param pref The preferred widths of the widgets. Used as the starting widths when current is null.
+     * @param max The max widths of the widgets.
+     * @param current The current widths of the widgets, or null to solve from the preferred widths.
+     * @param target The width of the row to fill.
+     * @param from The index of the first widget of the row.
+     * @param to The index after the last widget of the row.
+     * @param out Receives the solved widths. Must not be one of the input arrays.
+     */
+    public static void solve(double[] min, double[] pref, double[] max, double[] current, double target,
+                             int from, int to, double[] out) {
+        solve(min, pref, max, current, target, from, to, out, Distribution.EQUAL);
+    }
+
+    /**
+     * Solves the widths of the widgets from index from (inclusive) to index to (exclusive) into the same indexes
+     * of out. With a proportional distribution each widget moves by the shift times its weight (its min, max or
+     * current width), so the sweep also tracks the combined weight of the widgets still free to move.
+     * Allocates two scratch arrays, use the overload taking scratch arrays to solve without allocating.
+     *
+     * @param min The min widths of the widgets.
+     * @param pref The preferred widths of the widgets. Used as the starting widths when current is null.
+     * @param max The max widths of the widgets.
+     * @param current The current widths of the widgets, or null to solve from the preferred widths.
+     * @param target The width of the row to fill.
+     * @param from The index of the first widget of the row.
+     * @param to The index after the last widget of the row.
+     * @param out Receives the solved widths. Must not be one of the input arrays.
+     * @param distribution How the space is shared between the widgets.
+     */
+    public static void solve(double[] min, double[] pref, double[] max, double[] current, double target,
+                             int from, int to, double[] out, Distribution distribution) {
+        int n = to - from;
+        if (n <= 0)
+            return;
+        solve(min, pref, max, current, target, from, to, out, distribution, new double[n], new double[n], -from);
+    }
+
+    /**
+     * Solves like solve(min, pref, max, current, target, from, to, out, distribution) without allocating. The
+     * scratch arrays are indexed like out, so rows solved at the same time in the same arrays can share them.
+     *
+     * @param points Scratch, at least to values long. Values from to to - 1 are overwritten.
+     * @param pointWeights Scratch, at least to values long. Values from to to - 1 are overwritten.
+     */
+    public static void solve(double[] min, double[] pref, double[] max, double[] current, double target,
+                             int from, int to, double[] out, Distribution distribution,
+                             double[] points, double[] pointWeights) {
+        if (to > from)
+            solve(min, pref, max, current, target, from, to, out, distribution, points, pointWeights, 0);
+    }
+
+    /**
+     * @param s Offset of the scratch arrays from the widget indexes: widget k uses points[k + s].
+     */
+    private static void solve(double[] min, double[] pref, double[] max, double[] current, double target,
+                              int from, int to, double[] out, Distribution distribution,
+                              double[] points, double[] pointWeights, int s) {
+        int n = to - from;
+        double[] start = current != null ? current : pref;
+        double[] weights;
+        switch (distribution) {
+            case PROPORTIONAL_MIN:
+                weights = min;
+                break;
+            case PROPORTIONAL_MAX:
+                weights = max;
+                break;
+            case PROPORTIONAL_CURRENT:
+                weights = start;
+                break;
+            case EQUAL: default:
+                weights = null;
+                break;
+        }
+
+        //out holds the starting widths, clamped to the constraints, until the shift is known.
+        double total = 0; //total width at a shift of 0.
+        for (int k = from; k < to; k++) {
+            out[k] = Math.min(Math.max(start[k], min[k]), max[k]);
+            total += out[k];
+        }
+
+        double shift;
+        if (target == total) {
+            shift = 0;
+        } else if (weights == null) {
+            //Each widget is linear in the shift (slope 1) between its two saturation points and flat outside of them.
+            //Sorting the saturation points lets us sweep the total width as a piecewise linear function.
+            if (target > total) {
+                for (int k = from; k < to; k++)
+                    points[k + s] = max[k] - out[k]; //shift at which the widget stops growing (reaches max).
+                shift = sweepUp(points, from + s, total, target, n);
+            } else {
+                for (int k = from; k < to; k++)
+                    points[k + s] = min[k] - out[k]; //shift at which the widget stops shrinking (reaches min).
+                shift = sweepDown(points, from + s, total, target, n);
+            }
+        } else {
+            //Same sweep, but a widget moves by shift * weight so its saturation point is divided by its weight.
+            //Widgets with no weight never move and are left out of the sweep.
+            int m = from + s;
+            double slope = 0;
+            boolean up = target > total;
+            for (int k = from; k < to; k++) {
+                double weight = weight(weights, k);
+                if (weight > 0) {
+                    double limit = up ? max[k] : min[k];
+                    points[m] = (limit - out[k]) / weight;
+                    pointWeights[m] = weight;
+                    slope += weight;
+                    m++;
+                }
+            }
+            sortPairs(points, pointWeights, from + s, m - 1);
+            shift = up ? sweepUpWeighted(points, pointWeights, from + s, m, slope, total, target)
+                    : sweepDownWeighted(points, pointWeights, from + s, m, slope, total, target);
+        }
+
+        if (Double.isInfinite(shift)) {
+            //every widget that can move is saturated, the row extends past them or clips.
+            for (int k = from; k < to; k++)
+                if (weight(weights, k) > 0)
+                    out[k] = shift > 0 ? max[k] : min[k];
+            return;
+        }
+        for (int k = from; k < to; k++)
+            out[k] = Math.min(Math.max(out[k] + shift * weight(weights, k), min[k]), max[k]);
+    }
+
+    private static double weight(double[] weights, int k) {
+        return weights == null ? 1 : Math.max(0, weights[k]);
+    }
+
+    /**
+     * Finds the shift that grows the row to target. All widgets start free to grow.
+     */
+    private static double sweepUp(double[] upper, int lo, double total, double target, int n) {
+        Arrays.sort(upper, lo, lo + n);
+        double shift = 0;
+        int free = n;
+        for (int i = lo; i < lo + n; i++) {
+            double next = upper[i];
+            if (next > shift) {
+                double reach = total + free * (next - shift);
+                if (reach >= target)
+                    return shift + (target - total) / free;
+                total = reach;
+                shift = next;
+            }
+            free--; //this widget is now at max width.
+        }
+        return Double.POSITIVE_INFINITY; //every widget at max, the row extends past them.
+    }
+
+    /**
+     * Finds the (negative) shift that shrinks the row to target. All widgets start free to shrink.
+     */
+    private static double sweepDown(double[] lower, int lo, double total, double target, int n) {
+        Arrays.sort(lower, lo, lo + n);
+        double shift = 0;
+        int free = n;
+        for (int i = lo + n - 1; i >= lo; i--) {
+            double next = lower[i];
+            if (next < shift) {
+                double reach = total - free * (shift - next);
+                if (reach <= target)
+                    return shift - (total - target) / free;
+                total = reach;
+                shift = next;
+            }
+            free--; //this widget is now at min width.
+        }
+        return Double.NEGATIVE_INFINITY; //every widget at min, the row clips.
+    }
+
+    /**
+     * Finds the shift that grows the row to target when widgets move by shift * weight.
+     * The points from lo to m - 1 are sorted ascending, slope is the combined weight of all widgets.
+     */
+    private static double sweepUpWeighted(double[] upper, double[] weights, int lo, int m, double slope,
+                                          double total, double target) {
+        double shift = 0;
+        for (int i = lo; i < m; i++) {
+            double next = upper[i];
+            if (next > shift) {
+                double reach = total + slope * (next - shift);
+                if (reach >= target)
+                    return shift + (target - total) / slope;
+                total = reach;
+                shift = next;
+            }
+            slope -= weights[i]; //this widget is now at max width.
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Finds the (negative) shift that shrinks the row to target when widgets move by shift * weight.
+     * The points from lo to m - 1 are sorted ascending, slope is the combined weight of all widgets.
+     */
+    private static double sweepDownWeighted(double[] lower, double[] weights, int lo, int m, double slope,
+                                            double total, double target) {
+        double shift = 0;
+        for (int i = m - 1; i >= lo; i--) {
+            double next = lower[i];
+            if (next < shift) {
+                double reach = total - slope * (shift - next);
+                if (reach <= target)
+                    return shift - (total - target) / slope;
+                total = reach;
+                shift = next;
+            }
+            slope -= weights[i]; //this widget is now at min width.
+        }
+        return Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Sorts keys ascending between lo and hi (inclusive), moving the values with them. Quicksort on primitives so
+     * the weighted sweep does not need boxed index arrays.
+     */
+    private static void sortPairs(double[] keys, double[] values, int lo, int hi) {
+        while (lo < hi) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot)
+                    i++;
+                while (keys[j] > pivot)
+                    j--;
+                if (i <= j) {
+                    double k = keys[i]; keys[i] = keys[j]; keys[j] = k;
+                    double v = values[i]; values[i] = values[j]; values[j] = v;
+                    i++;
+                    j--;
+                }
+            }
+            //recurse into the smaller half, loop on the larger one to bound the stack depth.
+            if (j - lo < hi - i) {
+                sortPairs(keys, values, lo, j);
+                lo = i;
+            } else {
+                sortPairs(keys, values, i, hi);
+                hi = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package Part2;
+
+import java.util.stream.IntStream;
+
+/**
+ * Breaks a list of widgets into rows that fit a width, then solves each row with WidthSolver.
+ * Rows are independent of each other, so above PARALLEL_THRESHOLD widgets they are solved in parallel on the
+ * common ForkJoinPool. Has no JavaFX dependency.
+ */
+public final class WrapLayout {
+
+    /** Number of widgets from which the rows are solved in parallel. */
+    public static final int PARALLEL_THRESHOLD = 10_000;
+
+    private WrapLayout() {}
+
+    /**
+     * Breaks widgets into rows. A widget goes on the current row while the preferred widths of the row fit the width,
+     * so every row can reach its preferred widths and grows from there. A row always holds at least one widget.
+     *
+     * @param pref The preferred widths of the widgets.
+     * @param n The number of widgets.
+     * @param width The width of the container.
+     * @param rowStart Receives the index of the first widget of each row, followed by n. Must hold n+1 values.
+     * @return The number of rows.
+     */
+    public static int breakRows(double[] pref, int n, double width, int[] rowStart) {
+        int rows = 0;
+        double rowWidth = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || rowWidth + pref[i] > width) {
+                rowStart[rows++] = i;
+                rowWidth = 0;
+            }
+            rowWidth += pref[i];
+        }
+        rowStart[rows] = n;
+        return rows;
+    }
+
+    /**
+     * Solves the widths of every row and the height of each row, the tallest preferred height in it.
+     *
+     * @param min The min widths of the widgets.
+     * @param pref The preferred widths of the widgets.
+     * @param max The max widths of the widgets.
+     * @param prefHeight The preferred heights of the widgets.
+     * @param width The width of the container.
+     * @param rowStart The rows, as returned by breakRows.
+     * @param rows The number of rows.
+     * @param outWidth Receives the solved width of each widget.
+     * @param outRowHeight Receives the height of each row.
+     * @param distribution How each row shares out space.
+     */
+    public static void solveRows(double[] min, double[] pref, double[] max, double[] prefHeight, double width,
+                                 int[] rowStart, int rows, double[] outWidth, double[] outRowHeight,
+                                 Distribution distribution) {
+        int n = rowStart[rows];
+        solveRows(min, pref, max, prefHeight, width, rowStart, rows, outWidth, outRowHeight, distribution,
+                new double[n], new double[n]);
+    }
+
+    /**
+     * Solves like solveRows(min, pref, max, prefHeight, width, rowStart, rows, outWidth, outRowHeight, distribution)
+     * without allocating. Rows use disjoint parts of the scratch arrays, so they can be solved in parallel.
+     *
+     * @param points Scratch, at least as long as the number of widgets.
+     * @param pointWeights Scratch, at least as long as the number of widgets.
+     */
+    public static void solveRows(double[] min, double[] pref, double[] max, double[] prefHeight, double width,
+                                 int[] rowStart, int rows, double[] outWidth, double[] outRowHeight,
+                                 Distribution distribution, double[] points, double[] pointWeights) {
+        IntStream range = IntStream.range(0, rows);
+        if (rowStart[rows] >= PARALLEL_THRESHOLD)
+            range = range.parallel();
+        range.forEach(r -> {
+            int from = rowStart[r], to = rowStart[r + 1];
+            WidthSolver.solve(min, pref, max, null, width, from, to, outWidth, distribution, points, pointWeights);
+            double h = 0;
+            for (int i = from; i < to; i++)
+                h = Math.max(h, prefHeight[i]);
+            outRowHeight[r] = h;
+        });
+    }
+}
@@ -0,0 +1,309 @@
+package Part2;
+
+import Utility.GraphicsContextRenderer;
+import Utility.Renderer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.layout.Pane;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A sibling of RowLayoutPane that wraps its widgets onto as many rows as needed.
+ * Widgets are broken into rows by their preferred widths, then each row is solved on its own like a RowLayoutPane:
+ * widgets grow by the pane's Distribution until they reach their max width. A row is as tall as its tallest preferred height and
+ * widgets with Position FILL take the full height of their row.
+ * Large sets of widgets have their rows solved in parallel, see WrapLayout.
+ */
+public class WrapLayoutPane extends Pane {
+
+    private int inset = 5;
+    private final List<RowLayoutPane.RowCell> rCells = new ArrayList<>(); //1:1 relationship with Widgets.
+    private final Map<Widget, RowLayoutPane.RowCell> cellMap = new IdentityHashMap<>();
+    private final Canvas canvas;
+    private final Renderer renderer; //draws to the canvas.
+    private final LabelCache labels = new LabelCache();
+    private boolean layoutDirty = true; //the rows must be wrapped and solved again.
+    private boolean paintDirty = true; //the canvas must be redrawn.
+    private Distribution distribution = Distribution.EQUAL; //how each row shares out space.
+    private boolean inLayout; //the pane is changing its own widgets, ignore their notifications.
+    private final WidgetStore.Owner widgetOwner = new WidgetStore.Owner(this) { //told when a widget changes.
+        @Override
+        void sizeChanged(Widget w) {
+            invalidateLayout();
+        }
+
+        @Override
+        void colorChanged(Widget w) {
+            invalidatePaint();
+        }
+    };
+
+    //Layout arrays, reused between layouts.
+    private double[] min = new double[0], pref = new double[0], max = new double[0], prefHeight = new double[0];
+    private double[] widths = new double[0], rowHeights = new double[0];
+    private double[] points = new double[0], pointWeights = new double[0]; //solver scratch.
+    private int[] rowStart = new int[1];
+
+    //Arrays of computePrefHeight(), kept apart so measuring the pane never changes the arrays of its layout.
+    private double[] measurePref = new double[0], measureHeight = new double[0];
+    private int[] measureRowStart = new int[1];
+
+    /**
+     * Creates an empty WrapLayoutPane.
+     */
+    public WrapLayoutPane() {
+        canvas = new Canvas();
+        renderer = new GraphicsContextRenderer(canvas.getGraphicsContext2D());
+        getChildren().add(canvas);
+    }
+
+    /**
+     * Adds a widget at the end of the last row. A widget that is already in the pane is not added again.
+     *
+     * @param w A Widget that is added to a RowCell
+     * @throws IllegalArgumentException If the Widget is in another pane.
+     */
+    public void addWidget(Widget w) {
+        if (attach(w))
+            invalidateLayout();
+    }
+
+    /**
+     * Adds widgets in the order of the collection, then lays them out once.
+     *
+     * @param widgets The Widgets to add.
+     * @throws IllegalArgumentException If a Widget is in another pane. The Widgets before it are added.
+     */
+    public void addWidgets(Collection<Widget> widgets) {
+        boolean added = false;
+        try {
+            for (Widget w : widgets)
+                added |= attach(w);
+        } finally {
+            if (added)
+                invalidateLayout();
+        }
+    }
+
+    /**
+     * Removes a widget from the pane.
+     *
+     * @param w The Widget to remove.
+     * @return true if the Widget is removed from the container, false otherwise.
+     */
+    public boolean removeWidget(Widget w) {
+        RowLayoutPane.RowCell rc = cellMap.remove(w);
+        if (rc == null)
+            return false;
+        rCells.remove(rc);
+        w.detach(widgetOwner);
+        invalidateLayout();
+        return true;
+    }
+
+    /**
+     * Set's the vertical position of a Widget in its row.
+     *
+     * @param w The widget to assign Position
+     * @param position Position for the Widget (TOP,CENTER,FILL);
+     * @return true if widgets Position was set properly, false otherwise.
+     */
+    public boolean setVerticalPosition(Widget w, RowLayoutPane.Position position) {
+        RowLayoutPane.RowCell rc = cellMap.get(w);
+        if (rc == null)
+            return false;
+        if (rc.p != position) {
+            rc.setWidget(w, position);
+            invalidateLayout();
+        }
+        return true;
+    }
+
+    /**
+     * Sets how each row shares out space when it grows or shrinks.
+     * The widgets are wrapped again on every layout and each row is solved from the preferred widths of its widgets,
+     * so PROPORTIONAL_CURRENT shares space in proportion to the preferred widths.
+     *
+     * @param distribution EQUAL shares space equally, the PROPORTIONAL_ strategies in proportion to min, max or
+     *                     current width.
+     */
+    public void setDistribution(Distribution distribution) {
+        if (this.distribution == distribution)
+            return;
+        this.distribution = distribution;
+        invalidateLayout();
+    }
+
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * @return true if the Widget was added, false if it is already in the pane.
+     * @throws IllegalArgumentException If the Widget is in another pane.
+     */
+    private boolean attach(Widget w) {
+        if (cellMap.containsKey(w))
+            return false;
+        w.attach(widgetOwner);
+        RowLayoutPane.RowCell rc = new RowLayoutPane.RowCell(w);
+        rCells.add(rc);
+        cellMap.put(w, rc);
+        return true;
+    }
+
+    /**
+     * Marks the rows as out of date and asks for a layout pass. Ignored while the pane is laying out its own widgets.
+     */
+    private void invalidateLayout() {
+        if (inLayout)
+            return;
+        layoutDirty = true;
+        requestLayout();
+    }
+
+    /**
+     * Marks the canvas as out of date and asks for a layout pass, which redraws it.
+     * Ignored while the pane is laying out its own widgets, the layout redraws the canvas anyway.
+     */
+    private void invalidatePaint() {
+        if (inLayout)
+            return;
+        paintDirty = true;
+        requestLayout();
+    }
+
+    /**
+     * The preferred height is the height of the rows the widgets wrap onto at the given width.
+     */
+    @Override
+    protected double computePrefHeight(double width) {
+        double w = width < 0 ? getWidth() : width - snappedLeftInset() - snappedRightInset();
+        int n = rCells.size();
+        if (measurePref.length < n) {
+            int capacity = Math.max(n, measurePref.length * 2);
+            measurePref = new double[capacity];
+            measureHeight = new double[capacity];
+            measureRowStart = new int[capacity + 1];
+        }
+        for (int i = 0; i < n; i++) {
+            Widget widget = rCells.get(i).getWidget();
+            measurePref[i] = widget.getPrefWidth();
+            measureHeight[i] = widget.getPrefHeight();
+        }
+        int rows = WrapLayout.breakRows(measurePref, n, w, measureRowStart);
+        double h = 0;
+        for (int r = 0; r < rows; r++) {
+            double rowHeight = 0;
+            for (int i = measureRowStart[r]; i < measureRowStart[r + 1]; i++)
+                rowHeight = Math.max(rowHeight, measureHeight[i]);
+            h += rowHeight;
+        }
+        return snappedTopInset() + h + snappedBottomInset();
+    }
+
+    /**
+     * Wraps the widgets for the pane width, solves every row and redraws the canvas.
+     * Nothing is solved or redrawn unless the pane size, the widgets or their colors changed since the last call.
+     */
+    @Override
+    public void layoutChildren() {
+        if (canvas.getWidth() != getWidth() || canvas.getHeight() != getHeight()) {
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            layoutDirty = true;
+        }
+        if (layoutDirty) {
+            inLayout = true;
+            try {
+                solveRows(canvas.getWidth());
+            } finally {
+                inLayout = false;
+            }
+            layoutDirty = false;
+            paintDirty = true;
+        }
+        if (paintDirty) {
+            labels.updateScale(this);
+            drawRows(renderer);
+            paintDirty = false;
+        }
+    }
+
+    /**
+     * Copies the widget constraints into the layout arrays and breaks them into rows for the width.
+     *
+     * @return The number of rows.
+     */
+    private int breakRows(double width) {
+        int n = rCells.size();
+        if (min.length < n) {
+            int capacity = Math.max(n, min.length * 2);
+            min = new double[capacity];
+            pref = new double[capacity];
+            max = new double[capacity];
+            prefHeight = new double[capacity];
+            widths = new double[capacity];
+            rowHeights = new double[capacity];
+            points = new double[capacity];
+            pointWeights = new double[capacity];
+            rowStart = new int[capacity + 1];
+        }
+        for (int i = 0; i < n; i++) {
+            Widget w = rCells.get(i).getWidget();
+            min[i] = w.getMinWidth();
+            pref[i] = w.getPrefWidth();
+            max[i] = w.getMaxWidth();
+            prefHeight[i] = w.getPrefHeight();
+        }
+        return WrapLayout.breakRows(pref, n, width, rowStart);
+    }
+
+    /**
+     * Solves every row for the width and positions the RowCells, one row under the other.
+     */
+    private void solveRows(double width) {
+        int rows = breakRows(width);
+        WrapLayout.solveRows(min, pref, max, prefHeight, width, rowStart, rows, widths, rowHeights, distribution,
+                points, pointWeights);
+        double y = 0;
+        for (int r = 0; r < rows; r++) {
+            double x = 0;
+            for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+                RowLayoutPane.RowCell rc = rCells.get(i);
+                rc.height = rowHeights[r];
+                rc.width = widths[i];
+                rc.setPosition(x, y);
+                x += rc.width;
+                rc.layoutChildren();
+            }
+            y += rowHeights[r];
+        }
+    }
+
+    /**
+     * Draws the rows as last laid out to another Renderer, for example a RasterRenderer to render without a JavaFX
+     * toolkit. The pane's canvas is not changed.
+     *
+     * @param r The Renderer to draw to.
+     */
+    public void render(Renderer r) {
+        drawRows(r);
+    }
+
+    /**
+     * Draws the rows that are inside the canvas.
+     */
+    private void drawRows(Renderer gc) {
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (RowLayoutPane.RowCell rc : rCells) {
+            if (rc.y >= canvas.getHeight())
+                break; //rows are laid out top to bottom, the rest are below the canvas.
+            rc.draw(gc, inset, labels);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package Utility;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded around building the table of named colors behind ColorUtility, the first time it is used.
+ */
+@Name("assignment2.ColorMap")
+@Label("Colors Map")
+@Description("Building the map of predefined colors")
+@Category({"Assignment 2", "Colors"})
+@StackTrace(false)
+public class ColorMapEvent extends Event {
+
+    @Label("Color Count")
+    public int colorCount;
+
+    @Label("Generated")
+    @Description("The table came from the generated class, not from reflection")
+    public boolean generated;
+}
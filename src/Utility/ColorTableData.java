@@ -0,0 +1,18 @@
+package Utility;
+
+/**
+ * The predefined colors as plain arrays, sorted by name. Implemented by the class ColorTableGenerator writes and, when
+ * that class is missing, by ReflectedColorTable.
+ */
+interface ColorTableData {
+
+    /**
+     * @return The color names, sorted.
+     */
+    String[] names();
+
+    /**
+     * @return The colors packed as by ColorUtility.toArgb(), in the same order as names().
+     */
+    int[] argb();
+}
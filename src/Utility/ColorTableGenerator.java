@@ -0,0 +1,72 @@
+package Utility;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes GeneratedColorTable.java, the predefined colors as constant arrays, so ColorUtility does not need reflection
+ * at startup. The file is checked in, run the generator from the project directory and commit the result after
+ * changing the JavaFX version. Without the file ColorUtility reads the colors by reflection.
+ *
+ * Usage: ColorTableGenerator [source directory, default src]
+ */
+public class ColorTableGenerator {
+
+    static final String CLASS_NAME = "GeneratedColorTable";
+    private static final int PER_LINE = 6;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "src").resolve("Utility");
+        Path file = dir.resolve(CLASS_NAME + ".java");
+        Files.createDirectories(dir);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            write(new ReflectedColorTable(), out);
+        }
+        System.out.println("Wrote " + file);
+    }
+
+    /**
+     * Writes the source of the generated class, with \r\n line ends like the rest of the sources.
+     */
+    static void write(ColorTableData table, PrintWriter out) {
+        String[] names = table.names();
+        int[] argb = table.argb();
+        StringBuilder s = new StringBuilder();
+        s.append("package Utility;\n\n");
+        s.append("/**\n");
+        s.append(" * The ").append(names.length).append(" predefined colors of javafx.scene.paint.Color, sorted by name.\n");
+        s.append(" * Generated by ColorTableGenerator, do not edit. Run ColorTableGenerator again to update it.\n");
+        s.append(" */\n");
+        s.append("final class ").append(CLASS_NAME).append(" implements ColorTableData {\n\n");
+        s.append("    private static final String[] NAMES = {\n");
+        for (int i = 0; i < names.length; i += PER_LINE) {
+            s.append("           ");
+            for (int j = i; j < Math.min(names.length, i + PER_LINE); j++)
+                s.append(" \"").append(names[j]).append("\",");
+            s.append('\n');
+        }
+        s.append("    };\n\n");
+        s.append("    private static final int[] ARGB = {\n");
+        for (int i = 0; i < argb.length; i += PER_LINE) {
+            s.append("           ");
+            for (int j = i; j < Math.min(argb.length, i + PER_LINE); j++)
+                s.append(String.format(" 0x%08X,", argb[j]));
+            s.append('\n');
+        }
+        s.append("    };\n\n");
+        s.append("    @Override\n");
+        s.append("    public String[] names() {\n");
+        s.append("        return NAMES.clone();\n");
+        s.append("    }\n\n");
+        s.append("    @Override\n");
+        s.append("    public int[] argb() {\n");
+        s.append("        return ARGB.clone();\n");
+        s.append("    }\n");
+        s.append("}\n");
+        out.print(s.toString().replace("\n", "\r\n"));
+    }
+}
@@ -0,0 +1,239 @@
+package Utility;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+
+/**
+ * Animates color changes, any number at once, from one AnimationTimer.
+ * Each transition is identified by an int chosen by the owner, for example the index of a cell. A transition moves
+ * through a fixed number of steps interpolated in OKLab. The colors of the steps are made when the transition starts,
+ * into a table that is reused by the transitions that follow, so a frame only looks colors up and does not allocate.
+ * The timer runs only while transitions do.
+ * If the owner is not in a scene there are no frames and colors change right away, as they did before transitions.
+ */
+public class ColorTransitions {
+
+    /**
+     * Receives the colors of the transitions as they change, on the JavaFX thread.
+     */
+    public interface Target {
+        /**
+         * @param id The transition.
+         * @param c The color to show. The last call of a transition gives its end color.
+         */
+        void colorChanged(int id, Color c);
+    }
+
+    private static final int STEPS = 32; //colors a transition goes through, the start and end colors included.
+
+    private final Node owner;
+    private final Target target;
+    private long duration = 250_000_000L; //nanoseconds.
+    private AnimationTimer timer; //created with the first transition that animates, it needs the toolkit.
+    private boolean timerRunning;
+
+    //One slot per running transition, slots 0 to count - 1 are in use.
+    private int count;
+    private int[] ids = new int[8];
+    private long[] starts = new long[8]; //time of the first frame, -1 before it.
+    private int[] shownSteps = new int[8]; //step last given to the target.
+    private Color[] steps = new Color[8 * STEPS]; //colors of the steps of each slot, the last one is the end color.
+    private final double[] lab = new double[6]; //L, a and b of the start then the end color, while filling steps.
+    private int[] slotOf = new int[8]; //slot + 1 of each id, 0 if the id has no transition.
+    private long frames, completed;
+
+    /**
+     * @param owner The node the colors belong to. Transitions only animate while it is in a scene.
+     * @param target Receives the colors.
+     */
+    public ColorTransitions(Node owner, Target target) {
+        this.owner = owner;
+        this.target = target;
+    }
+
+    /**
+     * Sets how long a transition takes. Running transitions keep their duration.
+     *
+     * @param duration The duration, ZERO to change colors right away.
+     */
+    public void setDuration(Duration duration) {
+        this.duration = (long) (duration.toMillis() * 1_000_000);
+    }
+
+    public Duration getDuration() {
+        return Duration.millis(duration / 1_000_000.0);
+    }
+
+    /**
+     * Starts a transition, replacing the one running with the same id.
+     * Pass the color shown now as from, which is the color a running transition last gave, so a transition that is
+     * replaced halfway carries on smoothly from where it was.
+     *
+     * @param id The transition, a small int. Ids are used to index an array.
+     * @param from The color shown now, or null to change to the end color right away.
+     * @param to The end color, or null to clear the color right away.
+     */
+    public void start(int id, Color from, Color to) {
+        if (from == null || to == null || from.equals(to) || duration <= 0 || owner.getScene() == null) {
+            cancel(id);
+            target.colorChanged(id, to);
+            return;
+        }
+        if (id >= slotOf.length)
+            slotOf = Arrays.copyOf(slotOf, Math.max(id + 1, slotOf.length * 2));
+        int slot = slotOf[id] - 1;
+        if (slot < 0) {
+            if (count == ids.length)
+                grow();
+            slot = count++;
+            ids[slot] = id;
+            slotOf[id] = slot + 1;
+        }
+        starts[slot] = -1;
+        shownSteps[slot] = 0;
+        fillSteps(slot, from, to);
+        if (timer == null)
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    frame(now);
+                }
+            };
+        if (!timerRunning) {
+            timerRunning = true;
+            timer.start();
+        }
+    }
+
+    /**
+     * Stops a transition where it is, without giving its end color.
+     */
+    public void cancel(int id) {
+        if (id < slotOf.length && slotOf[id] > 0)
+            remove(slotOf[id] - 1);
+    }
+
+    /**
+     * Ends every transition, giving each its end color.
+     */
+    public void finishAll() {
+        while (count > 0) {
+            int slot = count - 1, id = ids[slot];
+            Color end = end(slot);
+            remove(slot);
+            completed++;
+            target.colorChanged(id, end);
+        }
+    }
+
+    /**
+     * @return true if the id has a transition running.
+     */
+    public boolean isRunning(int id) {
+        return id < slotOf.length && slotOf[id] > 0;
+    }
+
+    /**
+     * @return The number of transitions running.
+     */
+    public int getActiveCount() {
+        return count;
+    }
+
+    /**
+     * @return The number of frames the timer has run.
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * @return The number of transitions that reached their end color.
+     */
+    public long getCompletedCount() {
+        return completed;
+    }
+
+    /**
+     * Steps every transition to the time of a frame, from newest slot to oldest so ended ones can be removed in place.
+     * The colors picked follow a smoothstep of the time, so transitions ease in and out.
+     * Run by the timer, package-private so tests can run frames at chosen times.
+     */
+    void frame(long now) {
+        frames++;
+        for (int slot = count - 1; slot >= 0; slot--) {
+            if (slot >= count)
+                continue; //the target cancelled transitions.
+            if (starts[slot] < 0)
+                starts[slot] = now;
+            double t = (now - starts[slot]) / (double) duration;
+            int id = ids[slot];
+            if (t >= 1) {
+                Color end = end(slot);
+                remove(slot);
+                completed++;
+                target.colorChanged(id, end);
+                continue;
+            }
+            int step = (int) Math.round(t * t * (3 - 2 * t) * (STEPS - 1));
+            if (step != shownSteps[slot]) {
+                shownSteps[slot] = step;
+                target.colorChanged(id, steps[slot * STEPS + step]);
+            }
+        }
+        if (count == 0) {
+            timer.stop();
+            timerRunning = false;
+        }
+    }
+
+    /**
+     * Interpolates the colors of the steps of a slot's transition in OKLab. The first and last steps are the start and
+     * end colors as given.
+     */
+    private void fillSteps(int slot, Color from, Color to) {
+        int base = slot * STEPS;
+        OkLab.fromColor(from, lab, 0);
+        OkLab.fromColor(to, lab, 3);
+        double fromOpacity = from.getOpacity(), toOpacity = to.getOpacity();
+        steps[base] = from;
+        for (int step = 1; step < STEPS - 1; step++) {
+            double t = step / (double) (STEPS - 1);
+            steps[base + step] = OkLab.toColor(lab[0] + (lab[3] - lab[0]) * t, lab[1] + (lab[4] - lab[1]) * t,
+                    lab[2] + (lab[5] - lab[2]) * t, fromOpacity + (toOpacity - fromOpacity) * t);
+        }
+        steps[base + STEPS - 1] = to;
+    }
+
+    private Color end(int slot) {
+        return steps[slot * STEPS + STEPS - 1];
+    }
+
+    /**
+     * Frees a slot by moving the last slot into it.
+     */
+    private void remove(int slot) {
+        slotOf[ids[slot]] = 0;
+        int last = --count;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            starts[slot] = starts[last];
+            shownSteps[slot] = shownSteps[last];
+            System.arraycopy(steps, last * STEPS, steps, slot * STEPS, STEPS);
+            slotOf[ids[slot]] = slot + 1;
+        }
+        Arrays.fill(steps, last * STEPS, (last + 1) * STEPS, null);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        shownSteps = Arrays.copyOf(shownSteps, capacity);
+        steps = Arrays.copyOf(steps, capacity * STEPS);
+    }
+}
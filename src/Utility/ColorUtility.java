@@ -1,24 +1,30 @@
 package Utility;
 
 import javafx.application.Application;
+import javafx.collections.FXCollections;
 import javafx.scene.Scene;
-import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
-import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides an exploreable list of predefined color names.
  * Also example of accessing static property through
- * reflection of class to get a list.
+ * reflection of class to get a list (see ReflectedColorTable,
+ * used when the generated table is missing).
+ * The table of predefined colors is GeneratedColorTable, written by
+ * ColorTableGenerator. Run "ColorTableGenerator src" from the project
+ * directory to write it again after changing the JavaFX version.
  *
  *@author scottb
  */
@@ -27,19 +33,27 @@ public class ColorUtility extends Application{
 			launch(args);
 		}
 
+		/**
+		 * Shows the predefined colors, or the colors of a palette file written by MappedPalette when its path is given
+		 * as the first argument.
+		 */
 		@Override
-		public void start(Stage primaryStage) {
+		public void start(Stage primaryStage) throws IOException {
 			Pane root = new Pane();
-			ListView<HBox> lv = new ListView<>();
-
-			HashMap<String, Color> colorMap = getColorsMap();
+			ListView<String> lv = new ListView<>();
+			lv.setFixedCellSize(24); // lets the list skip measuring cells, palettes can be large
 
-			for (String colorName: colorMap.keySet())
+			List<String> args = getParameters().getRaw();
+			if (args.isEmpty())
 			{
-				HBox hb = new HBox(5);
-				hb.getChildren().add(new Rectangle(20,20,colorMap.get(colorName)));
-				hb.getChildren().add(new Label(colorName));
-				lv.getItems().add(hb);
+				lv.setItems(FXCollections.observableList(getColorNameList()));
+				lv.setCellFactory(new SwatchAtlas(getColorList()).cellFactory());
+			}
+			else
+			{
+				MappedPalette palette = MappedPalette.open(Paths.get(args.get(0)));
+				lv.setItems(palette.getColorNameList()); // a view of the file, names are decoded as cells show them
+				lv.setCellFactory(new SwatchAtlas(palette).cellFactory());
 			}
 
 			root.getChildren().add(lv);
@@ -51,51 +65,220 @@ public class ColorUtility extends Application{
 
 		/**
 		 * Returns a map of predefined Color objects indexed by name.
-		 * Adapted from https://www.javaworld.com/article/2074533/viewing-javafx-2-standard-colors.html
+		 * The table is built once, the first time it is needed, and shared. It comes from the class written by
+		 * ColorTableGenerator, or from the Color fields by reflection if that class is missing.
 		 *
-		 * @return a HashMap of the predefined Color objects indexed by name.
+		 * @return an unmodifiable Map of the predefined Color objects indexed by name.
 		 */
-		public static HashMap<String,Color> getColorsMap()
+		public static Map<String,Color> getColorsMap()
 		{
-		    final Field[] fields = Color.class.getFields(); // only want public
-		    HashMap<String, Color> colors = new HashMap<>();
+			return ColorTable.INSTANCE.map;
+		}
 
-			for (final Field field : fields)
-			{
-				if (field.getType() == Color.class)
-				{
-					try
-					{
-						final Color color = (Color) field.get(null);
-						final String colorName = field.getName();
+		/**
+		 * Returns a list of predefined color names, sorted, in the same order as getColorList().
+		 *
+		 * @return The unmodifiable list of predefined color names.
+		 */
+		public static List<String> getColorNameList()
+		{
+			return ColorTable.INSTANCE.names;
+		}
 
-						colors.put(colorName, color);
-					}
-					catch (IllegalAccessException ignored){
+		/**
+		 * Returns a list of predefined color objects, in the same order as getColorNameList().
+		 *
+		 * @return The unmodifiable list of predefined color objects.
+		 */
+		public static List<Color> getColorList()
+		{
+			return ColorTable.INSTANCE.colors;
+		}
 
-					}
-			    }
-			}
-			return colors;
+		/**
+		 * Finds the position of a predefined color in getColorNameList() and getColorList(), in O(1) without allocating.
+		 * Colors with several names (GRAY and GREY) give the first of their names in the list.
+		 *
+		 * @param c The color to look up.
+		 * @return The position of the color, or -1 if it is not a predefined color.
+		 */
+		public static int indexOf(Color c)
+		{
+			return c == null ? -1 : ColorTable.INSTANCE.indexOf(c);
 		}
 
 		/**
-		 * Returns a list of predefined color names.
+		 * Finds the name of a predefined color, in O(1) without allocating.
 		 *
-		 * @return The list of predefined color names.
+		 * @param c The color to look up.
+		 * @return The name of the color, or null if it is not a predefined color.
 		 */
-		public static List<String> getColorNameList()
+		public static String getColorName(Color c)
 		{
-			return new ArrayList<>(getColorsMap().keySet());
+			int index = indexOf(c);
+			return index < 0 ? null : ColorTable.INSTANCE.names.get(index);
 		}
 
 		/**
-		 * Returns a list of predefined color objects.
+		 * Finds the position of the predefined color that looks closest to any color, measured in OKLab.
+		 * Predefined colors are found exactly as by indexOf(), other colors through a k-d tree of the palette in well
+		 * under a microsecond. Opacity is ignored.
 		 *
-		 * @return The list of predefined color objects.
+		 * @param c The color to look up.
+		 * @return The position of the nearest predefined color, or -1 if c is null.
 		 */
-		public static List<Color> getColorList()
+		public static int nearestIndexOf(Color c)
+		{
+			if (c == null)
+				return -1;
+			int argb = toArgb(c);
+			int index = ColorTable.INSTANCE.indexOf(c, argb);
+			// 8 bits per channel are plenty to tell named colors apart and the conversion is table driven
+			return index >= 0 ? index : ColorTable.INSTANCE.nearest().nearest(argb);
+		}
+
+		/**
+		 * Finds the positions of the predefined colors that look closest to many colors at once, split over all cores
+		 * when there are many.
+		 *
+		 * @param argb The colors, packed as by toArgb().
+		 * @param out Receives the position of the nearest predefined color of each one, must be as long as argb.
+		 */
+		public static void nearestIndexOf(int[] argb, int[] out)
+		{
+			if (out.length < argb.length)
+				throw new IllegalArgumentException("out holds " + out.length + " positions, need " + argb.length);
+			ColorTable.INSTANCE.nearest().nearest(argb, out);
+		}
+
+		/**
+		 * Finds the name of the predefined color that looks closest to any color.
+		 *
+		 * @param c The color to look up.
+		 * @return The name of the nearest predefined color, or null if c is null.
+		 */
+		public static String getNearestColorName(Color c)
 		{
-			return new ArrayList<>(getColorsMap().values());
+			int index = nearestIndexOf(c);
+			return index < 0 ? null : ColorTable.INSTANCE.names.get(index);
+		}
+
+		/**
+		 * Packs a color into an int, 8 bits per channel: alpha, red, green, blue.
+		 *
+		 * @param c The color to pack.
+		 * @return The color as ARGB.
+		 */
+		public static int toArgb(Color c)
+		{
+			return (int) Math.round(c.getOpacity() * 255) << 24 | (int) Math.round(c.getRed() * 255) << 16
+					| (int) Math.round(c.getGreen() * 255) << 8 | (int) Math.round(c.getBlue() * 255);
+		}
+
+		/**
+		 * The predefined colors, built on first use. Loading the class is thread safe, so the table is built once
+		 * whichever thread asks for it first.
+		 */
+		private static final class ColorTable
+		{
+			static final ColorTable INSTANCE = new ColorTable();
+
+			final Map<String, Color> map;
+			final List<String> names;
+			final List<Color> colors;
+			//Reverse index, open addressing on the ARGB value: keys hold the ARGB, positions hold the list position + 1.
+			private final int[] keys, positions;
+			private volatile NamedColorIndex nearest; //built on the first lookup of a color that is not predefined.
+
+			private ColorTable()
+			{
+				ColorMapEvent event = new ColorMapEvent();
+				event.begin();
+				ColorTableData data = load();
+				String[] colorNames = data.names();
+				int[] argb = data.argb();
+				HashMap<String, Color> colorMap = new HashMap<>();
+				List<Color> colorList = new ArrayList<>(colorNames.length);
+				for (int i = 0; i < colorNames.length; i++)
+				{
+					Color color = Color.rgb(argb[i] >> 16 & 0xFF, argb[i] >> 8 & 0xFF, argb[i] & 0xFF, (argb[i] >>> 24) / 255.0);
+					colorMap.put(colorNames[i], color);
+					colorList.add(color);
+				}
+				map = Collections.unmodifiableMap(colorMap);
+				names = Collections.unmodifiableList(Arrays.asList(colorNames));
+				colors = Collections.unmodifiableList(colorList);
+
+				int capacity = Integer.highestOneBit(Math.max(1, colors.size()) * 4);
+				keys = new int[capacity];
+				positions = new int[capacity];
+				for (int i = 0; i < colors.size(); i++)
+				{
+					int slot = slot(argb[i]);
+					while (positions[slot] != 0 && keys[slot] != argb[i])
+						slot = (slot + 1) & (keys.length - 1);
+					if (positions[slot] == 0) // keep the first name of a color
+					{
+						keys[slot] = argb[i];
+						positions[slot] = i + 1;
+					}
+				}
+				if (event.shouldCommit())
+				{
+					event.colorCount = colors.size();
+					event.generated = !(data instanceof ReflectedColorTable);
+					event.commit();
+				}
+			}
+
+			/**
+			 * Loads the table written by ColorTableGenerator, or reads the colors by reflection if it has not been
+			 * generated. The generated class is looked up by name so the sources compile without it.
+			 */
+			private static ColorTableData load()
+			{
+				try
+				{
+					return (ColorTableData) Class.forName(ColorUtility.class.getPackageName() + "."
+							+ ColorTableGenerator.CLASS_NAME).getDeclaredConstructor().newInstance();
+				}
+				catch (ReflectiveOperationException | LinkageError | ClassCastException e)
+				{
+					return new ReflectedColorTable();
+				}
+			}
+
+			private int slot(int argb)
+			{
+				int h = argb * 0x9E3779B9;
+				return (h ^ (h >>> 16)) & (keys.length - 1);
+			}
+
+			NamedColorIndex nearest()
+			{
+				NamedColorIndex index = nearest;
+				if (index == null) // building twice in a race is harmless, both indexes are the same
+					nearest = index = new NamedColorIndex(colors);
+				return index;
+			}
+
+			int indexOf(Color c)
+			{
+				return indexOf(c, toArgb(c));
+			}
+
+			int indexOf(Color c, int argb)
+			{
+				for (int slot = slot(argb); positions[slot] != 0; slot = (slot + 1) & (keys.length - 1))
+				{
+					if (keys[slot] == argb)
+					{
+						int index = positions[slot] - 1;
+						// a color that only rounds to a predefined one is not that color
+						return colors.get(index).equals(c) ? index : -1;
+					}
+				}
+				return -1;
+			}
 		}
 }
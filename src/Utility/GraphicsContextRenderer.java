@@ -0,0 +1,109 @@
+package Utility;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.FontSmoothingType;
+
+/**
+ * Draws to a JavaFX canvas through its GraphicsContext.
+ */
+public class GraphicsContextRenderer implements Renderer {
+
+    private final GraphicsContext gc;
+
+    public GraphicsContextRenderer(GraphicsContext gc) {
+        this.gc = gc;
+    }
+
+    public GraphicsContext getGraphicsContext() {
+        return gc;
+    }
+
+    @Override
+    public void setFill(Color c) {
+        gc.setFill(c);
+    }
+
+    @Override
+    public void setStroke(Color c) {
+        gc.setStroke(c);
+    }
+
+    @Override
+    public void setLineWidth(double width) {
+        gc.setLineWidth(width);
+    }
+
+    @Override
+    public void setFontSmoothingType(FontSmoothingType type) {
+        gc.setFontSmoothingType(type);
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h) {
+        gc.fillRect(x, y, w, h);
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h) {
+        gc.strokeRect(x, y, w, h);
+    }
+
+    @Override
+    public void clearRect(double x, double y, double w, double h) {
+        gc.clearRect(x, y, w, h);
+    }
+
+    @Override
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        gc.strokeLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void fillOval(double x, double y, double w, double h) {
+        gc.fillOval(x, y, w, h);
+    }
+
+    @Override
+    public void strokeOval(double x, double y, double w, double h) {
+        gc.strokeOval(x, y, w, h);
+    }
+
+    @Override
+    public void strokeText(String text, double x, double y) {
+        gc.strokeText(text, x, y);
+    }
+
+    @Override
+    public void drawImage(Image image, double x, double y) {
+        gc.drawImage(image, x, y);
+    }
+
+    @Override
+    public void drawImage(Image image, double x, double y, double w, double h) {
+        gc.drawImage(image, x, y, w, h);
+    }
+
+    @Override
+    public void save() {
+        gc.save();
+    }
+
+    @Override
+    public void restore() {
+        gc.restore();
+    }
+
+    @Override
+    public void translate(double x, double y) {
+        gc.translate(x, y);
+    }
+
+    @Override
+    public void clipRect(double x, double y, double w, double h) {
+        gc.beginPath();
+        gc.rect(x, y, w, h);
+        gc.clip();
+    }
+}
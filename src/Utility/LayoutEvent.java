@@ -0,0 +1,27 @@
+package Utility;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded around the layout of a pane: solving and positioning its widgets, or resizing its canvases.
+ */
+@Name("assignment2.Layout")
+@Label("Pane Layout")
+@Description("Layout of a pane, with the widgets laid out and the strategy used")
+public class LayoutEvent extends PaneEvent {
+
+    private static final EventType TYPE = EventType.getEventType(LayoutEvent.class);
+
+    /**
+     * @return true if a recording has the event on, so a pane only creates one when it will be recorded.
+     */
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+}
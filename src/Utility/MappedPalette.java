@@ -0,0 +1,293 @@
+package Utility;
+
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.paint.Color;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A palette of named colors read from a memory mapped file, for palettes too large to keep as Color objects and
+ * Strings. Opening one only maps and checks the file, names are decoded when asked for and the lists it returns are
+ * views of the mapped file, so a palette of any size adds next to nothing to the heap.
+ *
+ * The file is big endian: the magic "PAL1", the number of colors n, n ARGB ints, n + 1 offsets of the names from the
+ * start of the names and the UTF-8 names. Colors are sorted by the bytes of their names so names can be searched by
+ * binary search.
+ *
+ * Usage: MappedPalette colors.csv palette.pal
+ * converts a text file with one color per line as name,color where the name has no comma and the color is anything
+ * Color.web() reads.
+ */
+public final class MappedPalette {
+
+    private static final int MAGIC = 0x50414C31; //"PAL1"
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int offsetsStart, namesStart; //positions in buffer.
+    private final ObservableList<String> names = new NameList();
+    private final List<Color> colors = new ColorList();
+
+    private MappedPalette(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < 8 || buffer.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("Not a palette file.");
+        count = buffer.getInt(4);
+        if (count < 0 || count > (buffer.limit() - 12) / 8)
+            throw new IllegalArgumentException("Palette file is truncated.");
+        offsetsStart = 8 + 4 * count;
+        namesStart = offsetsStart + 4 * (count + 1);
+        int previous = 0;
+        for (int i = 0; i <= count; i++) {
+            int offset = buffer.getInt(offsetsStart + 4 * i);
+            if (offset < previous || offset > buffer.limit() - namesStart)
+                throw new IllegalArgumentException("Palette file has a bad name offset at color " + i + ".");
+            previous = offset;
+        }
+    }
+
+    /**
+     * Maps a palette file. The mapping stays valid until the palette is garbage collected.
+     *
+     * @param file A file written by write().
+     * @return The palette.
+     * @throws IllegalArgumentException If the file is not a palette file.
+     */
+    public static MappedPalette open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Palette file is larger than 2GB.");
+            return new MappedPalette(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The color at a position, packed as by ColorUtility.toArgb().
+     */
+    public int getArgb(int index) {
+        return buffer.getInt(8 + 4 * checkIndex(index));
+    }
+
+    public Color getColor(int index) {
+        int argb = getArgb(index);
+        return Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, (argb >>> 24) / 255.0);
+    }
+
+    /**
+     * Decodes the name of the color at a position.
+     */
+    public String getName(int index) {
+        int start = nameStart(checkIndex(index));
+        byte[] bytes = new byte[nameStart(index + 1) - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds a color by its exact name, by binary search.
+     *
+     * @return The position of the color, or -1 if there is none with that name.
+     */
+    public int indexOf(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int i = lowerBound(key, false);
+        return i < count && compare(i, key, false) == 0 ? i : -1;
+    }
+
+    /**
+     * Finds the first color whose name starts with a prefix, by binary search.
+     *
+     * @return The position of the color, or -1 if there is none.
+     */
+    public int indexOfPrefix(String prefix) {
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        int i = lowerBound(key, true);
+        return i < count && compare(i, key, true) == 0 ? i : -1;
+    }
+
+    /**
+     * Returns the names starting with a prefix, a view of the mapped file. Position i of the list is position
+     * indexOfPrefix(prefix) + i of the palette.
+     */
+    public List<String> getNamesStartingWith(String prefix) {
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        return names.subList(lowerBound(key, true), upperBound(key));
+    }
+
+    /**
+     * Returns the names of the colors in palette order, a view of the mapped file that decodes a name each time it is
+     * read. The list never changes, so it can back a ListView without copying.
+     */
+    public ObservableList<String> getColorNameList() {
+        return names;
+    }
+
+    /**
+     * Returns the colors in palette order, a view of the mapped file.
+     */
+    public List<Color> getColorList() {
+        return colors;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + count + " colors");
+        return index;
+    }
+
+    private int nameStart(int index) {
+        return namesStart + buffer.getInt(offsetsStart + 4 * index);
+    }
+
+    /**
+     * Compares the name at a position with a key by unsigned bytes, the order names are sorted in.
+     *
+     * @param prefix Compare only as many bytes of the name as the key has.
+     */
+    private int compare(int index, byte[] key, boolean prefix) {
+        int start = nameStart(index), length = nameStart(index + 1) - start;
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int c = Integer.compare(buffer.get(start + i) & 0xFF, key[i] & 0xFF);
+            if (c != 0)
+                return c;
+        }
+        return prefix && length >= key.length ? 0 : Integer.compare(length, key.length);
+    }
+
+    //first position whose name is not less than the key.
+    private int lowerBound(byte[] key, boolean prefix) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(mid, key, prefix) < 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    //first position whose name is after every name starting with the key.
+    private int upperBound(byte[] key) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(mid, key, true) <= 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Writes a palette file, sorting the colors by name.
+     *
+     * @param file The file to write.
+     * @param names The names of the colors, no two the same.
+     * @param argb The colors, packed as by ColorUtility.toArgb(), in the same order as the names.
+     */
+    public static void write(Path file, List<String> names, int[] argb) throws IOException {
+        if (names.size() != argb.length)
+            throw new IllegalArgumentException(names.size() + " names for " + argb.length + " colors.");
+        byte[][] encoded = new byte[names.size()][];
+        Integer[] order = new Integer[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> encoded[i], Arrays::compareUnsigned));
+        for (int i = 1; i < order.length; i++)
+            if (Arrays.equals(encoded[order[i - 1]], encoded[order[i]]))
+                throw new IllegalArgumentException("Duplicate color name " + names.get(order[i]));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(order.length);
+            for (int i : order)
+                out.writeInt(argb[i]);
+            int offset = 0;
+            out.writeInt(offset);
+            for (int i : order) {
+                offset += encoded[i].length;
+                out.writeInt(offset);
+            }
+            for (int i : order)
+                out.write(encoded[i]);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: MappedPalette colors.csv palette.pal");
+            System.exit(1);
+        }
+        try {
+            List<String> names = new ArrayList<>();
+            List<Integer> colors = new ArrayList<>();
+            int line = 0;
+            for (String s : Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+                line++;
+                if (s.isBlank())
+                    continue;
+                int comma = s.indexOf(',');
+                if (comma < 0)
+                    throw new IllegalArgumentException("Line " + line + ": expected name,color");
+                names.add(s.substring(0, comma).trim());
+                colors.add(ColorUtility.toArgb(Color.web(s.substring(comma + 1).trim())));
+            }
+            write(Paths.get(args[1]), names, colors.stream().mapToInt(Integer::intValue).toArray());
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The names, decoded on each get.
+     */
+    private final class NameList extends ObservableListBase<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            return getName(index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    private final class ColorList extends AbstractList<Color> implements RandomAccess {
+        @Override
+        public Color get(int index) {
+            return getColor(index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
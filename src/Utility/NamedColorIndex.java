@@ -0,0 +1,215 @@
+package Utility;
+
+import javafx.scene.paint.Color;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the nearest color of a palette to any color, measured in OKLab so "nearest" is the one that looks closest.
+ * The palette is kept in a k-d tree, stored flat in arrays ordered so the node of a range is its middle element, so a
+ * query visits a few nodes instead of scanning the palette. Each thread keeps its search scratch, so queries do not
+ * allocate.
+ * Opacity is ignored, fully transparent palette colors are left out of the tree.
+ */
+public final class NamedColorIndex {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 14; //batch queries from which the work is split over cores.
+    private static final int MAX_SIZE = Integer.MAX_VALUE / 3; //points has 3 per color, it also keeps hi below 2^30.
+
+    private final double[] points; //L, a, b of each tree node.
+    private final int[] positions; //palette position of each tree node.
+    private final int stackSize; //ranges a search can have waiting, two per level of the tree.
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Builds the index of a palette.
+     *
+     * @param palette The colors. Query results are positions in this list.
+     */
+    public NamedColorIndex(List<Color> palette) {
+        int n = 0;
+        for (Color c : palette)
+            if (c.getOpacity() > 0)
+                n++;
+        if (n > MAX_SIZE)
+            throw new IllegalArgumentException("A palette can have at most " + MAX_SIZE + " opaque colors.");
+        points = new double[n * 3];
+        positions = new int[n];
+        for (int i = 0, k = 0; i < palette.size(); i++) {
+            Color c = palette.get(i);
+            if (c.getOpacity() > 0) {
+                OkLab.fromColor(c, points, k * 3);
+                positions[k++] = i;
+            }
+        }
+        build(0, n, 0);
+        stackSize = 2 * (33 - Integer.numberOfLeadingZeros(n));
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    /**
+     * @param c Any color.
+     * @return The palette position of the nearest color, or -1 if the palette is empty.
+     */
+    public int nearest(Color c) {
+        if (positions.length == 0)
+            return -1;
+        Scratch s = scratch.get();
+        OkLab.fromColor(c, s.lab, 0);
+        return positions[search(s.lab[0], s.lab[1], s.lab[2], s)];
+    }
+
+    /**
+     * @param argb Any color, 8 bits per channel.
+     * @return The palette position of the nearest color, or -1 if the palette is empty.
+     */
+    public int nearest(int argb) {
+        if (positions.length == 0)
+            return -1;
+        Scratch s = scratch.get();
+        OkLab.fromArgb(argb, s.lab, 0);
+        return positions[search(s.lab[0], s.lab[1], s.lab[2], s)];
+    }
+
+    /**
+     * @return The palette position of the nearest color to an OKLab color, or -1 if the palette is empty.
+     */
+    public int nearest(double l, double a, double b) {
+        if (positions.length == 0)
+            return -1;
+        return positions[search(l, a, b, scratch.get())];
+    }
+
+    /**
+     * Finds the nearest palette color of many packed colors, split over all cores when there are many.
+     *
+     * @param argb The colors, 8 bits per channel.
+     * @param out Receives the palette position of the nearest color of each one, must be as long as argb.
+     */
+    public void nearest(int[] argb, int[] out) {
+        int chunks = argb.length < PARALLEL_THRESHOLD ? 1 : (argb.length + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+        IntStream range = IntStream.range(0, chunks);
+        if (chunks > 1)
+            range = range.parallel();
+        range.forEach(chunk -> {
+            Scratch s = scratch.get();
+            int end = Math.min(argb.length, (chunk + 1) * PARALLEL_THRESHOLD);
+            for (int i = chunk * PARALLEL_THRESHOLD; i < end; i++) {
+                OkLab.fromArgb(argb[i], s.lab, 0);
+                out[i] = positions.length == 0 ? -1 : positions[search(s.lab[0], s.lab[1], s.lab[2], s)];
+            }
+        });
+    }
+
+    /**
+     * Orders the range so its middle element splits the rest on the axis, then does the same for both halves.
+     */
+    private void build(int lo, int hi, int axis) {
+        if (hi - lo < 2)
+            return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis);
+        build(lo, mid, (axis + 1) % 3);
+        build(mid + 1, hi, (axis + 1) % 3);
+    }
+
+    /**
+     * Moves the element that belongs at k in sorted order on the axis to k, smaller ones before it and larger ones
+     * after it (quickselect, inclusive bounds).
+     */
+    private void select(int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            double pivot = points[((lo + hi) >>> 1) * 3 + axis];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (points[i * 3 + axis] < pivot)
+                    i++;
+                while (points[j * 3 + axis] > pivot)
+                    j--;
+                if (i <= j)
+                    swap(i++, j--);
+            }
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                return;
+        }
+    }
+
+    private void swap(int i, int j) {
+        for (int d = 0; d < 3; d++) {
+            double t = points[i * 3 + d];
+            points[i * 3 + d] = points[j * 3 + d];
+            points[j * 3 + d] = t;
+        }
+        int t = positions[i];
+        positions[i] = positions[j];
+        positions[j] = t;
+    }
+
+    /**
+     * Walks the tree nearest side first, skipping a side when its splitting plane is further away than the best node
+     * so far. The ranges still to visit are kept on a stack, packed as lo, hi and axis.
+     *
+     * @param s The scratch of the calling thread.
+     * @return The nearest node. Ties go to the earlier palette position.
+     */
+    private int search(double l, double a, double b, Scratch s) {
+        long[] ranges = s.ranges;
+        double[] bounds = s.bounds;
+        int best = -1, top = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        ranges[0] = range(0, positions.length, 0);
+        bounds[0] = 0;
+        while (top >= 0) {
+            long range = ranges[top];
+            double bound = bounds[top--];
+            if (bound > bestDistance)
+                continue;
+            int lo = (int) (range >>> 32), hi = (int) range >>> 2, axis = (int) range & 3;
+            int mid = (lo + hi) >>> 1;
+            double d = distance(mid, l, a, b);
+            if (d < bestDistance || (d == bestDistance && positions[mid] < positions[best])) {
+                best = mid;
+                bestDistance = d;
+            }
+            double diff = (axis == 0 ? l : axis == 1 ? a : b) - points[mid * 3 + axis];
+            int next = axis == 2 ? 0 : axis + 1;
+            int nearLo = diff < 0 ? lo : mid + 1, nearHi = diff < 0 ? mid : hi;
+            int farLo = diff < 0 ? mid + 1 : lo, farHi = diff < 0 ? hi : mid;
+            if (farLo < farHi) { //pushed first so the near side is visited first
+                ranges[++top] = range(farLo, farHi, next);
+                bounds[top] = Math.max(bound, diff * diff);
+            }
+            if (nearLo < nearHi) {
+                ranges[++top] = range(nearLo, nearHi, next);
+                bounds[top] = bound;
+            }
+        }
+        return best;
+    }
+
+    private static long range(int lo, int hi, int axis) {
+        return (long) lo << 32 | (long) hi << 2 | axis;
+    }
+
+    private double distance(int node, double l, double a, double b) {
+        double dl = points[node * 3] - l, da = points[node * 3 + 1] - a, db = points[node * 3 + 2] - b;
+        return dl * dl + da * da + db * db;
+    }
+
+    /**
+     * The arrays a query works in, one set per thread.
+     */
+    private final class Scratch {
+        final double[] lab = new double[3];
+        final long[] ranges = new long[stackSize]; //stack of ranges, packed by range().
+        final double[] bounds = new double[stackSize]; //squared distance from the query to each range on the stack.
+    }
+}
@@ -0,0 +1,99 @@
+package Utility;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Converts colors to OKLab, a perceptual color space where the distance between two colors matches how different
+ * they look. Colors are written to an array as L, a, b so many can be converted without allocating.
+ * See https://bottosson.github.io/posts/oklab/
+ */
+public final class OkLab {
+
+    private static final double[] SRGB_TO_LINEAR = new double[256]; //8 bit sRGB channel to linear light.
+
+    static {
+        for (int i = 0; i < 256; i++)
+            SRGB_TO_LINEAR[i] = toLinear(i / 255.0);
+    }
+
+    private OkLab() {}
+
+    /**
+     * Removes the sRGB gamma from a channel.
+     *
+     * @param c The channel, 0 to 1.
+     * @return The channel in linear light, 0 to 1.
+     */
+    public static double toLinear(double c) {
+        return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+    }
+
+    /**
+     * Applies the sRGB gamma to a channel in linear light.
+     *
+     * @param c The channel in linear light, 0 to 1.
+     * @return The sRGB channel, 0 to 1.
+     */
+    public static double toSrgb(double c) {
+        return c <= 0.0031308 ? c * 12.92 : 1.055 * Math.pow(c, 1 / 2.4) - 0.055;
+    }
+
+    /**
+     * Converts a color, ignoring its opacity.
+     *
+     * @param c The color.
+     * @param out Receives L, a and b.
+     * @param offset Where L goes in out.
+     */
+    public static void fromColor(Color c, double[] out, int offset) {
+        fromLinear(toLinear(c.getRed()), toLinear(c.getGreen()), toLinear(c.getBlue()), out, offset);
+    }
+
+    /**
+     * Converts a packed color, ignoring its alpha. Faster than fromColor as the gamma comes from a table.
+     *
+     * @param argb The color, 8 bits per channel.
+     * @param out Receives L, a and b.
+     * @param offset Where L goes in out.
+     */
+    public static void fromArgb(int argb, double[] out, int offset) {
+        fromLinear(SRGB_TO_LINEAR[(argb >> 16) & 0xFF], SRGB_TO_LINEAR[(argb >> 8) & 0xFF],
+                SRGB_TO_LINEAR[argb & 0xFF], out, offset);
+    }
+
+    /**
+     * Converts a color in linear sRGB.
+     */
+    public static void fromLinear(double r, double g, double b, double[] out, int offset) {
+        double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+        double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+        double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+        out[offset] = 0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s;
+        out[offset + 1] = 1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s;
+        out[offset + 2] = 0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s;
+    }
+
+    /**
+     * Converts an OKLab color back to sRGB, clamping channels that fall outside the sRGB gamut.
+     *
+     * @param opacity The opacity of the color, 0 to 1.
+     * @return The color.
+     */
+    public static Color toColor(double lightness, double a, double b, double opacity) {
+        double l = lightness + 0.3963377774 * a + 0.2158037573 * b;
+        double m = lightness - 0.1055613458 * a - 0.0638541728 * b;
+        double s = lightness - 0.0894841775 * a - 1.2914855480 * b;
+        l = l * l * l;
+        m = m * m * m;
+        s = s * s * s;
+        double red = 4.0767416621 * l - 3.3077115913 * m + 0.2309699292 * s;
+        double green = -1.2684380046 * l + 2.6097574011 * m - 0.3413193965 * s;
+        double blue = -0.0041960863 * l - 0.7034186147 * m + 1.7076147010 * s;
+        return Color.color(clamp(toSrgb(clamp(red))), clamp(toSrgb(clamp(green))), clamp(toSrgb(clamp(blue))),
+                clamp(opacity));
+    }
+
+    private static double clamp(double c) {
+        return Math.min(1, Math.max(0, c));
+    }
+}
@@ -0,0 +1,24 @@
+package Utility;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded around the paint of a pane's canvas.
+ */
+@Name("assignment2.Paint")
+@Label("Pane Paint")
+@Description("Paint of a pane's canvas, the whole canvas or only the damaged parts")
+public class PaintEvent extends PaneEvent {
+
+    private static final EventType TYPE = EventType.getEventType(PaintEvent.class);
+
+    /**
+     * @return true if a recording has the event on, so a pane only creates one when it will be recorded.
+     */
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+}
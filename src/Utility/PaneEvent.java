@@ -0,0 +1,29 @@
+package Utility;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Fields shared by the Flight Recorder events of the panes.
+ */
+@Category({"Assignment 2", "Panes"})
+@StackTrace(false)
+public abstract class PaneEvent extends Event {
+
+    @Label("Pane")
+    public String pane;
+
+    @Label("Widget Count")
+    public int widgetCount;
+
+    @Label("Canvas Width")
+    public double canvasWidth;
+
+    @Label("Canvas Height")
+    public double canvasHeight;
+
+    @Label("Strategy")
+    public String strategy;
+}
@@ -0,0 +1,194 @@
+package Utility;
+
+import javafx.scene.Node;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts and times the layouts, paints and frames of a pane and publishes them as an MBean named
+ * Assignment2:type=[pane type],name=[pane type]-[n] while the pane is in a scene.
+ * The panes record from the JavaFX Application Thread, JMX reads from its own threads.
+ */
+public class PaneStats implements PaneStatsMBean {
+
+    private static final int SAMPLES = 1024; //recent samples the percentiles are taken from.
+    private static final AtomicInteger ids = new AtomicInteger();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final String type;
+    private ObjectName name;
+    private final long[] layoutNanos = new long[SAMPLES], paintNanos = new long[SAMPLES];
+    private long layouts, paints, frames;
+    private long layoutMax, paintMax;
+    private long allocated, allocatedMax;
+
+    /**
+     * Creates the stats of a pane. They are registered with the platform MBean server while the pane is in a scene.
+     *
+     * @param owner The pane.
+     * @param type The kind of pane, used in the MBean name.
+     */
+    public PaneStats(Node owner, String type) {
+        this.type = type;
+        try {
+            name = new ObjectName("Assignment2:type=" + type + ",name=" + type + "-" + ids.incrementAndGet());
+        } catch (JMException e) {
+            name = null;
+        }
+        owner.sceneProperty().addListener((ov, oldVal, newVal) -> {
+            if (newVal == null)
+                unregister();
+            else if (oldVal == null)
+                register();
+        });
+        if (owner.getScene() != null)
+            register();
+    }
+
+    private void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (name != null && !server.isRegistered(name))
+                server.registerMBean(this, name);
+        } catch (JMException | SecurityException e) {
+            //no JMX, the stats are still kept.
+        }
+    }
+
+    private void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (name != null && server.isRegistered(name))
+                server.unregisterMBean(name);
+        } catch (JMException | SecurityException e) {
+            //already gone.
+        }
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public ObjectName getObjectName() {
+        return name;
+    }
+
+    /**
+     * @return The bytes allocated so far by the calling thread, or -1 if the JVM cannot tell.
+     */
+    public static long threadAllocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+            if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled())
+                return t.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    public synchronized void recordLayout(long nanos) {
+        layoutNanos[(int) (layouts++ % SAMPLES)] = nanos;
+        layoutMax = Math.max(layoutMax, nanos);
+    }
+
+    public synchronized void recordPaint(long nanos) {
+        paintNanos[(int) (paints++ % SAMPLES)] = nanos;
+        paintMax = Math.max(paintMax, nanos);
+    }
+
+    /**
+     * Records the end of a frame.
+     *
+     * @param allocatedBytes The bytes allocated by the frame, or a negative value if unknown.
+     */
+    public synchronized void recordFrame(long allocatedBytes) {
+        frames++;
+        if (allocatedBytes >= 0 && allocated >= 0) {
+            allocated += allocatedBytes;
+            allocatedMax = Math.max(allocatedMax, allocatedBytes);
+        } else {
+            allocated = -1;
+        }
+    }
+
+    @Override
+    public synchronized long getLayoutCount() {
+        return layouts;
+    }
+
+    @Override
+    public synchronized long getPaintCount() {
+        return paints;
+    }
+
+    @Override
+    public synchronized long getFrameCount() {
+        return frames;
+    }
+
+    @Override
+    public synchronized double getLayoutP50Millis() {
+        return percentile(layoutNanos, layouts, 0.50);
+    }
+
+    @Override
+    public synchronized double getLayoutP99Millis() {
+        return percentile(layoutNanos, layouts, 0.99);
+    }
+
+    @Override
+    public synchronized double getLayoutMaxMillis() {
+        return layoutMax / 1e6;
+    }
+
+    @Override
+    public synchronized double getPaintP50Millis() {
+        return percentile(paintNanos, paints, 0.50);
+    }
+
+    @Override
+    public synchronized double getPaintP99Millis() {
+        return percentile(paintNanos, paints, 0.99);
+    }
+
+    @Override
+    public synchronized double getPaintMaxMillis() {
+        return paintMax / 1e6;
+    }
+
+    @Override
+    public synchronized long getAllocatedBytesPerFrame() {
+        if (allocated < 0)
+            return -1;
+        return frames == 0 ? 0 : allocated / frames;
+    }
+
+    @Override
+    public synchronized long getMaxAllocatedBytesPerFrame() {
+        return allocatedMax;
+    }
+
+    @Override
+    public synchronized void reset() {
+        layouts = paints = frames = 0;
+        layoutMax = paintMax = 0;
+        allocated = allocatedMax = 0;
+    }
+
+    /**
+     * @return The percentile of the recent samples in milliseconds, nearest rank.
+     */
+    private static double percentile(long[] samples, long count, double p) {
+        int n = (int) Math.min(count, SAMPLES);
+        if (n == 0)
+            return 0;
+        long[] sorted = Arrays.copyOf(samples, n);
+        Arrays.sort(sorted);
+        return sorted[Math.min(n - 1, (int) Math.ceil(p * n) - 1)] / 1e6;
+    }
+}
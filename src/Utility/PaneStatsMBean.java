@@ -0,0 +1,35 @@
+package Utility;
+
+/**
+ * Layout and paint timings of a pane, published over JMX. Times are in milliseconds, percentiles cover the most
+ * recent samples and the max covers every sample since the last reset.
+ */
+public interface PaneStatsMBean {
+
+    long getLayoutCount();
+
+    long getPaintCount();
+
+    long getFrameCount();
+
+    double getLayoutP50Millis();
+
+    double getLayoutP99Millis();
+
+    double getLayoutMaxMillis();
+
+    double getPaintP50Millis();
+
+    double getPaintP99Millis();
+
+    double getPaintMaxMillis();
+
+    /**
+     * @return The average number of bytes allocated by a frame (a layout and paint), -1 if the JVM cannot tell.
+     */
+    long getAllocatedBytesPerFrame();
+
+    long getMaxAllocatedBytesPerFrame();
+
+    void reset();
+}
@@ -0,0 +1,106 @@
+package Utility;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+/**
+ * Runs a task at most once per JavaFX pulse, after the scene's layout pass.
+ * Any number of requests made before the pulse are coalesced into one run, which sees the latest state of its owner.
+ * Counts requests, coalesced requests and runs so the savings can be checked.
+ */
+public class PulseScheduler {
+
+    private final Node owner;
+    private final Runnable task;
+    private final Runnable pulseListener = this::pulse;
+    private boolean pending;
+    private long requests, coalesced, runs;
+
+    /**
+     * Creates a scheduler for a node. The scheduler follows the node when it moves to another scene.
+     *
+     * @param owner The node the task belongs to.
+     * @param task The work to run, for example a layout and paint.
+     */
+    public PulseScheduler(Node owner, Runnable task) {
+        this.owner = owner;
+        this.task = task;
+        //Stay registered while the node is in a scene, a pulse with nothing pending costs one check.
+        owner.sceneProperty().addListener((ov, oldVal, newVal) -> {
+            if (oldVal != null)
+                oldVal.removePostLayoutPulseListener(pulseListener);
+            if (newVal != null)
+                newVal.addPostLayoutPulseListener(pulseListener);
+        });
+        if (owner.getScene() != null)
+            owner.getScene().addPostLayoutPulseListener(pulseListener);
+    }
+
+    /**
+     * Asks for the task to run after the next layout pass. If the owner is not in a scene there is no pulse to wait
+     * for and the task runs right away.
+     */
+    public void request() {
+        requests++;
+        if (pending) {
+            coalesced++;
+            return;
+        }
+        Scene scene = owner.getScene();
+        if (scene == null) {
+            run();
+            return;
+        }
+        pending = true;
+        Platform.requestNextPulse();
+    }
+
+    /**
+     * Runs the task now if a request is pending, instead of waiting for the pulse.
+     */
+    public void flush() {
+        if (pending)
+            pulse();
+    }
+
+    private void pulse() {
+        if (!pending)
+            return;
+        pending = false;
+        run();
+    }
+
+    private void run() {
+        runs++;
+        task.run();
+    }
+
+    /**
+     * @return true if a request is waiting for the next pulse.
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * @return The number of times the task was requested.
+     */
+    public long getRequestCount() {
+        return requests;
+    }
+
+    /**
+     * @return The number of requests that were merged into a run already pending.
+     */
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * @return The number of times the task ran.
+     */
+    public long getRunCount() {
+        return runs;
+    }
+}
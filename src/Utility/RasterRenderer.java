@@ -0,0 +1,522 @@
+package Utility;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.paint.Color;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Draws into an int[] of ARGB pixels without a JavaFX toolkit, for rendering layouts on servers and in tests.
+ * Drawing calls are recorded, then render() splits the buffer into tiles and rasterizes the tiles in parallel, each
+ * tile replaying only the commands that touch it, in order. Shapes are not antialiased, pixels whose centers fall
+ * inside a shape are painted. Text is stroked with Java2D, one tile at a time.
+ *
+ * Usage: draw to the renderer, call render(), then read getPixels().
+ */
+public class RasterRenderer implements Renderer {
+
+    /** Width and height of a tile in pixels. */
+    public static final int TILE = 128;
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 13); //close to the JavaFX default font.
+    private static final FontMetrics METRICS;
+
+    static {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scratch.createGraphics();
+        METRICS = g.getFontMetrics(FONT);
+        g.dispose();
+    }
+
+    private final int width, height;
+    private final int[] pixels;
+    private final BufferedImage image; //shares pixels, used to draw text.
+    private final List<Command> commands = new ArrayList<>();
+    private final Deque<State> saved = new ArrayDeque<>();
+    private State state;
+
+    /**
+     * The drawing attributes, transform and clip in effect. The clip is in pixels, max exclusive.
+     */
+    private static final class State {
+        int fill = 0xFF000000, stroke = 0xFF000000;
+        double lineWidth = 1;
+        double tx, ty;
+        int clipX0, clipY0, clipX1, clipY1;
+
+        State copy() {
+            State s = new State();
+            s.fill = fill;
+            s.stroke = stroke;
+            s.lineWidth = lineWidth;
+            s.tx = tx;
+            s.ty = ty;
+            s.clipX0 = clipX0;
+            s.clipY0 = clipY0;
+            s.clipX1 = clipX1;
+            s.clipY1 = clipY1;
+            return s;
+        }
+    }
+
+    /**
+     * Creates a transparent buffer.
+     *
+     * @param width The width in pixels.
+     * @param height The height in pixels.
+     */
+    public RasterRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        pixels = new int[Math.max(1, width * height)];
+        DirectColorModel cm = new DirectColorModel(32, 0xFF0000, 0xFF00, 0xFF, 0xFF000000);
+        SinglePixelPackedSampleModel sm = new SinglePixelPackedSampleModel(DataBufferInt.TYPE_INT,
+                Math.max(1, width), Math.max(1, height), cm.getMasks());
+        WritableRaster raster = Raster.createWritableRaster(sm, new DataBufferInt(pixels, pixels.length), null);
+        image = new BufferedImage(cm, raster, false, null);
+        state = new State();
+        state.clipX1 = width;
+        state.clipY1 = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The pixels, row by row, as ARGB. Only up to date after render().
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return The number of commands recorded since the last render().
+     */
+    public int getCommandCount() {
+        return commands.size();
+    }
+
+    /**
+     * Rasterizes the recorded commands into the pixels, tiles in parallel, and forgets the commands.
+     *
+     * @return The pixels, row by row, as ARGB.
+     */
+    public int[] render() {
+        int tilesX = (width + TILE - 1) / TILE, tilesY = (height + TILE - 1) / TILE;
+        int[][] bins = new int[tilesX * tilesY][];
+        int[] counts = new int[bins.length];
+        for (int c = 0; c < commands.size(); c++) {
+            Command cmd = commands.get(c);
+            for (int ty = cmd.y0 / TILE; ty <= (cmd.y1 - 1) / TILE; ty++) {
+                for (int tx = cmd.x0 / TILE; tx <= (cmd.x1 - 1) / TILE; tx++) {
+                    int t = ty * tilesX + tx;
+                    if (bins[t] == null)
+                        bins[t] = new int[16];
+                    else if (counts[t] == bins[t].length)
+                        bins[t] = Arrays.copyOf(bins[t], counts[t] * 2);
+                    bins[t][counts[t]++] = c;
+                }
+            }
+        }
+        IntStream.range(0, bins.length).parallel().forEach(t -> {
+            int tileX = (t % tilesX) * TILE, tileY = (t / tilesX) * TILE;
+            for (int k = 0; k < counts[t]; k++) {
+                Command cmd = commands.get(bins[t][k]);
+                cmd.draw(this, Math.max(cmd.x0, tileX), Math.max(cmd.y0, tileY),
+                        Math.min(cmd.x1, tileX + TILE), Math.min(cmd.y1, tileY + TILE));
+            }
+        });
+        commands.clear();
+        return pixels;
+    }
+
+    /**
+     * Converts a color to ARGB. A null color is transparent.
+     */
+    public static int argb(Color c) {
+        return c == null ? 0 : ColorUtility.toArgb(c);
+    }
+
+    @Override
+    public void setFill(Color c) {
+        if (c != null)
+            state.fill = argb(c);
+    }
+
+    @Override
+    public void setStroke(Color c) {
+        if (c != null)
+            state.stroke = argb(c);
+    }
+
+    @Override
+    public void setLineWidth(double width) {
+        if (width > 0)
+            state.lineWidth = width;
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h) {
+        rect(x + state.tx, y + state.ty, w, h, state.fill, false);
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h) {
+        double lw = state.lineWidth, half = lw / 2;
+        x += state.tx;
+        y += state.ty;
+        rect(x - half, y - half, w + lw, lw, state.stroke, false);
+        rect(x - half, y + h - half, w + lw, lw, state.stroke, false);
+        rect(x - half, y + half, lw, h - lw, state.stroke, false);
+        rect(x + w - half, y + half, lw, h - lw, state.stroke, false);
+    }
+
+    @Override
+    public void clearRect(double x, double y, double w, double h) {
+        rect(x + state.tx, y + state.ty, w, h, 0, true);
+    }
+
+    private void rect(double x, double y, double w, double h, int color, boolean replace) {
+        if (w <= 0 || h <= 0)
+            return;
+        Command cmd = new FillRect(color, replace);
+        if (clip(cmd, (int) Math.ceil(x - 0.5), (int) Math.ceil(y - 0.5),
+                (int) Math.ceil(x + w - 0.5), (int) Math.ceil(y + h - 0.5)))
+            commands.add(cmd);
+    }
+
+    @Override
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        Line cmd = new Line(x1 + state.tx, y1 + state.ty, x2 + state.tx, y2 + state.ty, state.lineWidth, state.stroke);
+        double half = Math.max(1, state.lineWidth) / 2;
+        if (clip(cmd, (int) Math.floor(Math.min(cmd.ax, cmd.bx) - half), (int) Math.floor(Math.min(cmd.ay, cmd.by) - half),
+                (int) Math.ceil(Math.max(cmd.ax, cmd.bx) + half) + 1, (int) Math.ceil(Math.max(cmd.ay, cmd.by) + half) + 1))
+            commands.add(cmd);
+    }
+
+    @Override
+    public void fillOval(double x, double y, double w, double h) {
+        oval(x + state.tx + w / 2, y + state.ty + h / 2, w / 2, h / 2, 0, 0, state.fill);
+    }
+
+    @Override
+    public void strokeOval(double x, double y, double w, double h) {
+        double half = state.lineWidth / 2;
+        oval(x + state.tx + w / 2, y + state.ty + h / 2, w / 2 + half, h / 2 + half, w / 2 - half, h / 2 - half,
+                state.stroke);
+    }
+
+    private void oval(double cx, double cy, double rx, double ry, double innerRx, double innerRy, int color) {
+        if (rx <= 0 || ry <= 0)
+            return;
+        Command cmd = new Oval(cx, cy, rx, ry, innerRx, innerRy, color);
+        if (clip(cmd, (int) Math.floor(cx - rx), (int) Math.floor(cy - ry),
+                (int) Math.ceil(cx + rx) + 1, (int) Math.ceil(cy + ry) + 1))
+            commands.add(cmd);
+    }
+
+    @Override
+    public void strokeText(String text, double x, double y) {
+        String[] lines = text.split("\n", -1);
+        int textWidth = 0;
+        for (String line : lines)
+            textWidth = Math.max(textWidth, METRICS.stringWidth(line));
+        int lineHeight = METRICS.getHeight();
+        x += state.tx;
+        y += state.ty;
+        Text cmd = new Text(lines, x, y, lineHeight, state.stroke);
+        if (clip(cmd, (int) Math.floor(x) - 2, (int) Math.floor(y) - METRICS.getAscent() - 2,
+                (int) Math.ceil(x) + textWidth + 2, (int) Math.ceil(y) + (lines.length - 1) * lineHeight
+                        + METRICS.getDescent() + 2))
+            commands.add(cmd);
+    }
+
+    @Override
+    public void drawImage(Image img, double x, double y) {
+        int iw = (int) img.getWidth(), ih = (int) img.getHeight();
+        if (iw <= 0 || ih <= 0 || img.getPixelReader() == null)
+            return;
+        int[] argb = new int[iw * ih];
+        img.getPixelReader().getPixels(0, 0, iw, ih, PixelFormat.getIntArgbInstance(), argb, 0, iw);
+        int ix = (int) Math.round(x + state.tx), iy = (int) Math.round(y + state.ty);
+        Command cmd = new Blit(argb, iw, ix, iy);
+        if (clip(cmd, ix, iy, ix + iw, iy + ih))
+            commands.add(cmd);
+    }
+
+    /**
+     * Scales the image to the nearest pixel, the raster has no filtering.
+     */
+    @Override
+    public void drawImage(Image img, double x, double y, double w, double h) {
+        int iw = (int) img.getWidth(), ih = (int) img.getHeight();
+        int ow = (int) Math.round(w), oh = (int) Math.round(h);
+        if (ow == iw && oh == ih) {
+            drawImage(img, x, y);
+            return;
+        }
+        if (iw <= 0 || ih <= 0 || ow <= 0 || oh <= 0 || img.getPixelReader() == null)
+            return;
+        int[] src = new int[iw * ih];
+        img.getPixelReader().getPixels(0, 0, iw, ih, PixelFormat.getIntArgbInstance(), src, 0, iw);
+        int[] argb = new int[ow * oh];
+        for (int py = 0; py < oh; py++) {
+            int sy = Math.min(ih - 1, (int) ((py + 0.5) * ih / oh));
+            for (int px = 0; px < ow; px++)
+                argb[py * ow + px] = src[sy * iw + Math.min(iw - 1, (int) ((px + 0.5) * iw / ow))];
+        }
+        int ix = (int) Math.round(x + state.tx), iy = (int) Math.round(y + state.ty);
+        Command cmd = new Blit(argb, ow, ix, iy);
+        if (clip(cmd, ix, iy, ix + ow, iy + oh))
+            commands.add(cmd);
+    }
+
+    @Override
+    public void save() {
+        saved.push(state.copy());
+    }
+
+    @Override
+    public void restore() {
+        if (!saved.isEmpty())
+            state = saved.pop();
+    }
+
+    @Override
+    public void translate(double x, double y) {
+        state.tx += x;
+        state.ty += y;
+    }
+
+    @Override
+    public void clipRect(double x, double y, double w, double h) {
+        x += state.tx;
+        y += state.ty;
+        state.clipX0 = Math.max(state.clipX0, (int) Math.ceil(x - 0.5));
+        state.clipY0 = Math.max(state.clipY0, (int) Math.ceil(y - 0.5));
+        state.clipX1 = Math.min(state.clipX1, (int) Math.ceil(x + w - 0.5));
+        state.clipY1 = Math.min(state.clipY1, (int) Math.ceil(y + h - 0.5));
+    }
+
+    /**
+     * Sets the bounds of a command to the given pixel bounds inside the clip.
+     *
+     * @return false if nothing of the command is inside the clip.
+     */
+    private boolean clip(Command cmd, int x0, int y0, int x1, int y1) {
+        cmd.x0 = Math.max(x0, state.clipX0);
+        cmd.y0 = Math.max(y0, state.clipY0);
+        cmd.x1 = Math.min(x1, state.clipX1);
+        cmd.y1 = Math.min(y1, state.clipY1);
+        return cmd.x0 < cmd.x1 && cmd.y0 < cmd.y1;
+    }
+
+    /**
+     * Paints a pixel with a color over what is already there.
+     */
+    private void blend(int index, int src) {
+        int sa = src >>> 24;
+        if (sa == 255) {
+            pixels[index] = src;
+            return;
+        }
+        if (sa == 0)
+            return;
+        int dst = pixels[index];
+        int da = dst >>> 24;
+        int oa = sa + da * (255 - sa) / 255;
+        if (oa == 0) {
+            pixels[index] = 0;
+            return;
+        }
+        int r = (((src >> 16) & 0xFF) * sa + ((dst >> 16) & 0xFF) * da * (255 - sa) / 255) / oa;
+        int g = (((src >> 8) & 0xFF) * sa + ((dst >> 8) & 0xFF) * da * (255 - sa) / 255) / oa;
+        int b = ((src & 0xFF) * sa + (dst & 0xFF) * da * (255 - sa) / 255) / oa;
+        pixels[index] = oa << 24 | r << 16 | g << 8 | b;
+    }
+
+    private void span(int y, int from, int to, int color) {
+        int row = y * width;
+        for (int x = from; x < to; x++)
+            blend(row + x, color);
+    }
+
+    /********************************************************************************************************
+    COMMANDS: recorded drawing calls. Bounds are in pixels inside the clip, max exclusive.
+    ********************************************************************************************************/
+
+    private abstract static class Command {
+        int x0, y0, x1, y1;
+
+        /**
+         * Draws the part of the command inside the given bounds, which are inside the command's own bounds.
+         */
+        abstract void draw(RasterRenderer r, int bx0, int by0, int bx1, int by1);
+    }
+
+    private static final class FillRect extends Command {
+        final int color;
+        final boolean replace; //clearRect replaces pixels instead of painting over them.
+
+        FillRect(int color, boolean replace) {
+            this.color = color;
+            this.replace = replace;
+        }
+
+        @Override
+        void draw(RasterRenderer r, int bx0, int by0, int bx1, int by1) {
+            for (int y = by0; y < by1; y++) {
+                if (replace)
+                    Arrays.fill(r.pixels, y * r.width + bx0, y * r.width + bx1, color);
+                else
+                    r.span(y, bx0, bx1, color);
+            }
+        }
+    }
+
+    private static final class Line extends Command {
+        final double ax, ay, bx, by, lineWidth;
+        final int color;
+
+        Line(double ax, double ay, double bx, double by, double lineWidth, int color) {
+            this.ax = ax;
+            this.ay = ay;
+            this.bx = bx;
+            this.by = by;
+            this.lineWidth = lineWidth;
+            this.color = color;
+        }
+
+        @Override
+        void draw(RasterRenderer r, int bx0, int by0, int bx1, int by1) {
+            double dx = bx - ax, dy = by - ay;
+            int steps = (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy)));
+            int size = (int) Math.max(1, Math.round(lineWidth));
+            double half = size / 2.0;
+            for (int s = 0; s <= steps; s++) {
+                double t = steps == 0 ? 0 : (double) s / steps;
+                int px = (int) Math.floor(ax + dx * t - half + 0.5), py = (int) Math.floor(ay + dy * t - half + 0.5);
+                for (int y = Math.max(py, by0); y < Math.min(py + size, by1); y++)
+                    r.span(y, Math.max(px, bx0), Math.min(px + size, bx1), color);
+            }
+        }
+    }
+
+    private static final class Oval extends Command {
+        final double cx, cy, rx, ry, innerRx, innerRy; //a stroke is the ring between the outer and inner ovals.
+        final int color;
+
+        Oval(double cx, double cy, double rx, double ry, double innerRx, double innerRy, int color) {
+            this.cx = cx;
+            this.cy = cy;
+            this.rx = rx;
+            this.ry = ry;
+            this.innerRx = innerRx;
+            this.innerRy = innerRy;
+            this.color = color;
+        }
+
+        @Override
+        void draw(RasterRenderer r, int bx0, int by0, int bx1, int by1) {
+            for (int y = by0; y < by1; y++) {
+                double yc = y + 0.5;
+                double outer = halfSpan(yc, rx, ry);
+                if (outer < 0)
+                    continue;
+                int from = Math.max(bx0, (int) Math.ceil(cx - outer - 0.5));
+                int to = Math.min(bx1, (int) Math.ceil(cx + outer - 0.5));
+                double inner = innerRx > 0 && innerRy > 0 ? halfSpan(yc, innerRx, innerRy) : -1;
+                if (inner < 0) {
+                    r.span(y, from, to, color);
+                } else {
+                    r.span(y, from, Math.min(to, (int) Math.ceil(cx - inner - 0.5)), color);
+                    r.span(y, Math.max(from, (int) Math.ceil(cx + inner - 0.5)), to, color);
+                }
+            }
+        }
+
+        /**
+         * @return Half the width of the oval on the row at y, or -1 if the row misses it.
+         */
+        private double halfSpan(double y, double rx, double ry) {
+            double d = (y - cy) / ry;
+            return Math.abs(d) > 1 ? -1 : rx * Math.sqrt(1 - d * d);
+        }
+    }
+
+    private static final class Text extends Command {
+        final String[] lines;
+        final double x, y;
+        final int lineHeight, color;
+
+        Text(String[] lines, double x, double y, int lineHeight, int color) {
+            this.lines = lines;
+            this.x = x;
+            this.y = y;
+            this.lineHeight = lineHeight;
+            this.color = color;
+        }
+
+        @Override
+        void draw(RasterRenderer r, int bx0, int by0, int bx1, int by1) {
+            //each tile draws through its own view of the image, so tiles never share a Graphics2D.
+            Graphics2D g = r.image.getSubimage(bx0, by0, bx1 - bx0, by1 - by0).createGraphics();
+            try {
+                g.translate(-bx0, -by0);
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setColor(new java.awt.Color(color, true));
+                g.setStroke(new BasicStroke(1));
+                FontRenderContext frc = g.getFontRenderContext();
+                for (int i = 0; i < lines.length; i++) {
+                    if (!lines[i].isEmpty())
+                        g.draw(FONT.createGlyphVector(frc, lines[i]).getOutline((float) x, (float) (y + i * lineHeight)));
+                }
+            } finally {
+                g.dispose();
+            }
+        }
+    }
+
+    private static final class Blit extends Command {
+        final int[] argb;
+        final int imageWidth, ix, iy;
+
+        Blit(int[] argb, int imageWidth, int ix, int iy) {
+            this.argb = argb;
+            this.imageWidth = imageWidth;
+            this.ix = ix;
+            this.iy = iy;
+        }
+
+        @Override
+        void draw(RasterRenderer r, int bx0, int by0, int bx1, int by1) {
+            for (int y = by0; y < by1; y++) {
+                int src = (y - iy) * imageWidth - ix, row = y * r.width;
+                for (int x = bx0; x < bx1; x++)
+                    r.blend(row + x, argb[src + x]);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package Utility;
+
+import javafx.scene.paint.Color;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the predefined colors from the public static Color fields of Color by reflection.
+ * Adapted from https://www.javaworld.com/article/2074533/viewing-javafx-2-standard-colors.html
+ */
+class ReflectedColorTable implements ColorTableData {
+
+    private final String[] names;
+    private final int[] argb;
+
+    ReflectedColorTable() {
+        Map<String, Color> colors = new TreeMap<>();
+        for (Field field : Color.class.getFields()) { // only want public
+            if (field.getType() == Color.class && Modifier.isStatic(field.getModifiers())) {
+                try {
+                    colors.put(field.getName(), (Color) field.get(null));
+                } catch (IllegalAccessException ignored) {
+
+                }
+            }
+        }
+        names = colors.keySet().toArray(new String[0]);
+        argb = new int[names.length];
+        for (int i = 0; i < names.length; i++)
+            argb[i] = ColorUtility.toArgb(colors.get(names[i]));
+    }
+
+    @Override
+    public String[] names() {
+        return names;
+    }
+
+    @Override
+    public int[] argb() {
+        return argb;
+    }
+}
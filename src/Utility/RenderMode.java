@@ -0,0 +1,16 @@
+package Utility;
+
+/**
+ * How a pane puts its content on screen.
+ */
+public enum RenderMode {
+    /**
+     * Draws into a Canvas from Java code on the JavaFX thread, repainting what changed.
+     */
+    IMMEDIATE,
+    /**
+     * Keeps a scene graph node for each shape and only updates the nodes that changed, so the scene graph works out
+     * the dirty regions and the repainting happens on the render thread.
+     */
+    RETAINED
+}
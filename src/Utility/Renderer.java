@@ -0,0 +1,64 @@
+package Utility;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.FontSmoothingType;
+
+/**
+ * The drawing operations used by the panes, so they can draw to a JavaFX canvas or to a buffer in memory.
+ * Coordinates, save/restore, translate and clip behave like the same calls on a GraphicsContext.
+ *
+ * @see GraphicsContextRenderer
+ * @see RasterRenderer
+ */
+public interface Renderer {
+
+    void setFill(Color c);
+
+    void setStroke(Color c);
+
+    void setLineWidth(double width);
+
+    /**
+     * Only a hint, renderers that cannot change how text is smoothed ignore it.
+     */
+    default void setFontSmoothingType(FontSmoothingType type) {}
+
+    void fillRect(double x, double y, double w, double h);
+
+    void strokeRect(double x, double y, double w, double h);
+
+    /**
+     * Clears a rectangle to transparent.
+     */
+    void clearRect(double x, double y, double w, double h);
+
+    void strokeLine(double x1, double y1, double x2, double y2);
+
+    void fillOval(double x, double y, double w, double h);
+
+    void strokeOval(double x, double y, double w, double h);
+
+    /**
+     * Strokes text with its first baseline at y. Text can hold several lines separated by '\n'.
+     */
+    void strokeText(String text, double x, double y);
+
+    void drawImage(Image image, double x, double y);
+
+    /**
+     * Draws an image scaled to fill a rectangle, for example an image rendered at the screen's output scale.
+     */
+    void drawImage(Image image, double x, double y, double w, double h);
+
+    void save();
+
+    void restore();
+
+    void translate(double x, double y);
+
+    /**
+     * Intersects the clip with a rectangle, until the next restore().
+     */
+    void clipRect(double x, double y, double w, double h);
+}
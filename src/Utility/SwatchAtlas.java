@@ -0,0 +1,86 @@
+package Utility;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.util.Callback;
+
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * One image holding a pixel of every color of a palette, so list cells can show a swatch by pointing an ImageView at
+ * their pixel instead of each item having its own node. The pixel is scaled up without smoothing, so it stays one flat
+ * color. A palette of 100K colors takes a 4096 x 25 image.
+ */
+public class SwatchAtlas {
+
+    private static final int MAX_WIDTH = 4096; //pixels per row of the atlas.
+    static final double SWATCH_SIZE = 16;
+
+    private final WritableImage image;
+    private final int size;
+
+    /**
+     * @param colors The colors, in the order of the list the swatches are shown in.
+     */
+    public SwatchAtlas(List<Color> colors) {
+        this(colors.size(), i -> ColorUtility.toArgb(colors.get(i)));
+    }
+
+    /**
+     * @param palette The palette, read without decoding its names.
+     */
+    public SwatchAtlas(MappedPalette palette) {
+        this(palette.size(), palette::getArgb);
+    }
+
+    private SwatchAtlas(int size, IntUnaryOperator argb) {
+        this.size = size;
+        int width = Math.max(1, Math.min(size, MAX_WIDTH));
+        int height = Math.max(1, (size + MAX_WIDTH - 1) / MAX_WIDTH);
+        image = new WritableImage(width, height);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            int n = Math.min(width, size - y * width);
+            for (int x = 0; x < n; x++)
+                row[x] = argb.applyAsInt(y * width + x);
+            image.getPixelWriter().setPixels(0, y, n, 1, PixelFormat.getIntArgbInstance(), row, 0, width);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return An ImageView on the atlas sized as a swatch, to be pointed at a color with show().
+     */
+    ImageView newSwatch() {
+        ImageView view = new ImageView(image);
+        view.setSmooth(false);
+        view.setFitWidth(SWATCH_SIZE);
+        view.setFitHeight(SWATCH_SIZE);
+        return view;
+    }
+
+    /**
+     * Points a swatch from newSwatch() at the color at a position.
+     */
+    void show(ImageView swatch, int index) {
+        int width = (int) image.getWidth();
+        swatch.setViewport(new Rectangle2D(index % width, index / width, 1, 1));
+    }
+
+    /**
+     * @return A cell factory for a ListView whose items are in the same order as the atlas colors, showing each item
+     * with its swatch.
+     */
+    public <T> Callback<ListView<T>, ListCell<T>> cellFactory() {
+        return lv -> new SwatchListCell<>(this);
+    }
+}
@@ -0,0 +1,34 @@
+package Utility;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.image.ImageView;
+
+/**
+ * A list cell showing its item with the swatch of the color at the same position in a SwatchAtlas. The ListView only
+ * creates the cells it has on screen and reuses them while scrolling, so a cell keeps one ImageView and moves its
+ * viewport.
+ */
+class SwatchListCell<T> extends ListCell<T> {
+
+    private final SwatchAtlas atlas;
+    private final ImageView swatch;
+
+    SwatchListCell(SwatchAtlas atlas) {
+        this.atlas = atlas;
+        swatch = atlas.newSwatch();
+        setGraphicTextGap(6);
+    }
+
+    @Override
+    protected void updateItem(T item, boolean empty) {
+        super.updateItem(item, empty);
+        if (empty || item == null || getIndex() >= atlas.size()) {
+            setText(null);
+            setGraphic(null);
+        } else {
+            atlas.show(swatch, getIndex());
+            setText(item.toString());
+            setGraphic(swatch);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package Part2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that LayoutBatch reads well formed widget files and reports malformed ones as an IOException naming the
+ * problem, which main() prints, instead of failing with a parsing or indexing exception.
+ */
+class LayoutBatchTest {
+
+    @TempDir
+    Path dir;
+
+    private Path csv(String text) throws IOException {
+        Path file = dir.resolve("widgets.csv");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<double[]> read(LayoutBatch batch) {
+        List<double[]> widgets = new ArrayList<>();
+        batch.scan((index, min, pref, max, position) -> widgets.add(new double[] {min, pref, max, position}));
+        return widgets;
+    }
+
+    /**
+     * Scans a file that should not parse and returns the IOException reporting it.
+     */
+    private static IOException malformed(Path file) throws IOException {
+        LayoutBatch batch = new LayoutBatch(file, Distribution.EQUAL);
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> read(batch));
+        return e.getCause();
+    }
+
+    @Test
+    void readsCsvWithHeaderCommentsAndPositions() throws IOException {
+        Path file = csv("min,pref,max,position\r\n10,20,30\r\n# comment\r\n\r\n1.5, 2.25 ,3e1,CENTER\n0.1,0.2,0.3,fill\n");
+        List<double[]> widgets = read(new LayoutBatch(file, Distribution.EQUAL));
+        assertEquals(3, widgets.size());
+        assertArrayEquals(new double[] {10, 20, 30, RowLayoutPane.Position.TOP.ordinal()}, widgets.get(0));
+        assertArrayEquals(new double[] {1.5, 2.25, 30, RowLayoutPane.Position.CENTER.ordinal()}, widgets.get(1));
+        assertArrayEquals(new double[] {0.1, 0.2, 0.3, RowLayoutPane.Position.FILL.ordinal()}, widgets.get(2));
+    }
+
+    @Test
+    void skipsSpacesAndTabsAroundFields() throws IOException {
+        Path file = csv("10 ,\t20\t, 30 \t,\ttop\n\t1.5\t,2.5 ,\t3.5\tfill\n");
+        IOException e = malformed(file);
+        assertTrue(e.getMessage().contains("Expected a comma") && e.getMessage().endsWith("on line 2"), e.getMessage());
+        file = csv("10 ,\t20\t, 30 \t,\ttop\n\t1.5\t,2.5 ,\t3.5\t,\tFILL \r\n");
+        List<double[]> widgets = read(new LayoutBatch(file, Distribution.EQUAL));
+        assertArrayEquals(new double[] {10, 20, 30, RowLayoutPane.Position.TOP.ordinal()}, widgets.get(0));
+        assertArrayEquals(new double[] {1.5, 2.5, 3.5, RowLayoutPane.Position.FILL.ordinal()}, widgets.get(1));
+    }
+
+    @Test
+    void errorsNameTheLine() throws IOException {
+        IOException e = malformed(csv("min,pref,max\n10,20,30\n\n# comment\n10,20,x\n"));
+        assertTrue(e.getMessage().endsWith("on line 5"), e.getMessage());
+        e = malformed(csv("10,20,30\r\n10,20,30,MIDDLE\r\n"));
+        assertTrue(e.getMessage().endsWith("on line 2"), e.getMessage());
+    }
+
+    @Test
+    void csvNumbersRoundLikeParseDouble() throws IOException {
+        String[] numbers = {"0.1", "000123.4500", "1234567890.123456789", "0.000000000000000001", "-7.25"};
+        StringBuilder s = new StringBuilder();
+        for (String n : numbers)
+            s.append(n).append(',').append(n).append(',').append(n).append('\n');
+        List<double[]> widgets = read(new LayoutBatch(csv(s.toString()), Distribution.EQUAL));
+        for (int i = 0; i < numbers.length; i++)
+            assertEquals(Double.parseDouble(numbers[i]), widgets.get(i)[0], numbers[i]);
+    }
+
+    @Test
+    void badNumberIsReported() throws IOException {
+        IOException e = malformed(csv("10,20,30\n10,abc,30\n"));
+        assertTrue(e.getMessage().contains("Bad number"), e.getMessage());
+    }
+
+    @Test
+    void badCsvPositionIsReported() throws IOException {
+        IOException e = malformed(csv("10,20,30,MIDDLE\n"));
+        assertTrue(e.getMessage().contains("Bad position"), e.getMessage());
+    }
+
+    @Test
+    void badBinaryPositionIsReported() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x57535031); //"WSP1"
+            out.writeDouble(10);
+            out.writeDouble(20);
+            out.writeDouble(30);
+            out.writeByte(RowLayoutPane.Position.values().length);
+        }
+        Path file = dir.resolve("widgets.bin");
+        Files.write(file, bytes.toByteArray());
+        IOException e = malformed(file);
+        assertTrue(e.getMessage().contains("Bad position"), e.getMessage());
+    }
+
+    @Test
+    void convertedFileReadsBackTheSame() throws IOException {
+        Path file = csv("10,20,30,top\n1.5,2.5,3.5,center\n0,0,0,fill\n");
+        Path bin = dir.resolve("widgets.bin");
+        new LayoutBatch(file, Distribution.EQUAL).convert(bin);
+        List<double[]> expected = read(new LayoutBatch(file, Distribution.EQUAL));
+        List<double[]> actual = read(new LayoutBatch(bin, Distribution.EQUAL));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertArrayEquals(expected.get(i), actual.get(i), "widget " + i);
+    }
+}
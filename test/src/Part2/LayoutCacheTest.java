@@ -0,0 +1,130 @@
+package Part2;
+
+import javafx.geometry.Dimension2D;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a RowLayoutPane lays out the same with the layout cache on as with it off, and that a width gives the
+ * same layout whatever widths came before it. The panes are not in a scene, so layoutChildren() solves and positions
+ * the widgets right away.
+ */
+class LayoutCacheTest {
+
+    private static final long CACHE_BYTES = 16 << 20;
+
+    /**
+     * The widgets of the Part2 demo.
+     */
+    private static List<Widget> demoWidgets() {
+        WidgetStore store = new WidgetStore(3);
+        List<Widget> widgets = new ArrayList<>();
+        widgets.add(store.add(new Dimension2D(200, 200), new Dimension2D(275, Double.MAX_VALUE),
+                new Dimension2D(250, 200)));
+        widgets.add(store.add(new Dimension2D(250, 200), new Dimension2D(400, 500), new Dimension2D(300, 400)));
+        widgets.add(store.add(new Dimension2D(100, 200), new Dimension2D(300, 300), new Dimension2D(200, 200)));
+        return widgets;
+    }
+
+    private static RowLayoutPane pane(List<Widget> widgets, long cacheBytes) {
+        RowLayoutPane pane = new RowLayoutPane();
+        pane.setLayoutCacheSize(cacheBytes);
+        pane.addWidgets(widgets);
+        return pane;
+    }
+
+    private static void layout(RowLayoutPane pane, double width) {
+        pane.resize(width, 400);
+        pane.layoutChildren();
+    }
+
+    private static void assertSameLayout(List<Widget> expected, List<Widget> actual, String message) {
+        for (int i = 0; i < expected.size(); i++) {
+            Widget e = expected.get(i), a = actual.get(i);
+            assertEquals(e.getWidth(), a.getWidth(), message + ", width of widget " + i);
+            assertEquals(e.getXPos(), a.getXPos(), message + ", x of widget " + i);
+            assertEquals(e.getYPos(), a.getYPos(), message + ", y of widget " + i);
+            assertEquals(e.getWidgetColor(), a.getWidgetColor(), message + ", color of widget " + i);
+        }
+    }
+
+    @Test
+    void dragBackAndForthMatchesUncachedLayout() {
+        List<Widget> cached = demoWidgets(), uncached = demoWidgets();
+        RowLayoutPane on = pane(cached, CACHE_BYTES), off = pane(uncached, 0);
+        for (double width : new double[] {1000, 700, 900}) {
+            layout(on, width);
+            layout(off, width);
+            assertSameLayout(uncached, cached, "width " + width);
+        }
+    }
+
+    @Test
+    void randomResizesMatchUncachedLayout() {
+        Random r = new Random(4);
+        for (int trial = 0; trial < 100; trial++) {
+            List<Widget> cached = demoWidgets(), uncached = demoWidgets();
+            RowLayoutPane on = pane(cached, CACHE_BYTES), off = pane(uncached, 0);
+            for (int step = 0; step < 40; step++) {
+                //a few widths come back often so the cache has something to hit.
+                double width = r.nextInt(3) == 0 ? 600 + r.nextInt(5) * 100 : 400 + r.nextDouble() * 800;
+                layout(on, width);
+                layout(off, width);
+                assertSameLayout(uncached, cached, "trial " + trial + ", step " + step + ", width " + width);
+            }
+        }
+    }
+
+    @Test
+    void aWidthGivesTheSameLayoutWhateverCameBefore() {
+        List<Widget> dragged = demoWidgets(), direct = demoWidgets();
+        RowLayoutPane drag = pane(dragged, 0), jump = pane(direct, 0);
+        for (double width : new double[] {1000, 520, 640, 1200, 700})
+            layout(drag, width);
+        layout(jump, 700);
+        assertSameLayout(direct, dragged, "width 700");
+    }
+
+    @Test
+    void changedConstraintsAreSolvedAgain() {
+        List<Widget> cached = demoWidgets(), uncached = demoWidgets();
+        RowLayoutPane on = pane(cached, CACHE_BYTES), off = pane(uncached, 0);
+        layout(on, 800);
+        layout(off, 800);
+        cached.get(1).setPrefSize(350, 400);
+        uncached.get(1).setPrefSize(350, 400);
+        layout(on, 800);
+        layout(off, 800);
+        assertSameLayout(uncached, cached, "after a pref width change");
+    }
+
+    @Test
+    void theCacheIsOnByDefault() {
+        RowLayoutPane pane = new RowLayoutPane();
+        pane.addWidgets(demoWidgets());
+        layout(pane, 1000);
+        layout(pane, 500);
+        layout(pane, 1000);
+        assertTrue(pane.getLayoutCacheSize() > 0);
+        assertEquals(1, pane.getLayoutCacheHits());
+    }
+
+    @Test
+    void alternatingResizeHitsTheCache() {
+        List<Widget> cached = demoWidgets(), uncached = demoWidgets();
+        RowLayoutPane on = pane(cached, CACHE_BYTES), off = pane(uncached, 0);
+        for (int i = 0; i < 20; i++) {
+            double width = i % 2 == 0 ? 1000 : 500;
+            layout(on, width);
+            layout(off, width);
+            assertSameLayout(uncached, cached, "layout " + i);
+        }
+        assertTrue(on.getLayoutCacheHits() > 0, "no cache hits");
+        assertEquals(0, off.getLayoutCacheHits());
+    }
+}
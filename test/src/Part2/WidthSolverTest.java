@@ -0,0 +1,126 @@
+package Part2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the widths WidthSolver gives on random rows: every width stays within its widget's min and max, the widths
+ * fill the row whenever the widgets free to move allow it, and the overloads agree.
+ */
+class WidthSolverTest {
+
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * A random row of n widgets, rows[0] to rows[2] are min, pref and max, rows[3] widths somewhere between.
+     */
+    private static double[][] row(Random r, int n) {
+        double[][] rows = new double[4][n];
+        for (int k = 0; k < n; k++) {
+            rows[0][k] = r.nextInt(4) == 0 ? 0 : r.nextDouble() * 200;
+            rows[1][k] = rows[0][k] + (r.nextInt(4) == 0 ? 0 : r.nextDouble() * 200);
+            rows[2][k] = rows[1][k] + (r.nextInt(4) == 0 ? 0 : r.nextDouble() * 200);
+            rows[3][k] = rows[0][k] + r.nextDouble() * (rows[2][k] - rows[0][k]);
+        }
+        return rows;
+    }
+
+    private static double sum(double[] a) {
+        double s = 0;
+        for (double d : a)
+            s += d;
+        return s;
+    }
+
+    /**
+     * The weight a widget moves by, widgets of weight 0 keep their starting width.
+     */
+    private static double weight(Distribution distribution, double[][] row, double[] start, int k) {
+        switch (distribution) {
+            case PROPORTIONAL_MIN:
+                return row[0][k];
+            case PROPORTIONAL_MAX:
+                return row[2][k];
+            case PROPORTIONAL_CURRENT:
+                return start[k];
+            case EQUAL: default:
+                return 1;
+        }
+    }
+
+    @Test
+    void widthsStayWithinMinAndMaxAndFillTheRow() {
+        Random r = new Random(1);
+        for (Distribution distribution : Distribution.values()) {
+            for (int trial = 0; trial < 2000; trial++) {
+                int n = 1 + r.nextInt(20);
+                double[][] row = row(r, n);
+                double[] current = r.nextBoolean() ? row[3] : null;
+                double[] start = current != null ? current : row[1];
+                double totalMin = 0, totalMax = 0; //narrowest and widest the row can get.
+                for (int k = 0; k < n; k++) {
+                    boolean moves = weight(distribution, row, start, k) > 0;
+                    totalMin += moves ? row[0][k] : start[k];
+                    totalMax += moves ? row[2][k] : start[k];
+                }
+                double target = r.nextDouble() * (totalMax * 1.2 + 10);
+                double[] out = new double[n];
+                WidthSolver.solve(row[0], row[1], row[2], current, target, 0, n, out, distribution);
+                for (int k = 0; k < n; k++) {
+                    assertTrue(out[k] >= row[0][k] && out[k] <= row[2][k],
+                            distribution + ": width " + out[k] + " outside " + row[0][k] + " to " + row[2][k]);
+                }
+                double expected = Math.min(Math.max(target, totalMin), totalMax);
+                assertEquals(expected, sum(out), EPSILON * Math.max(1, expected), distribution + " row total");
+            }
+        }
+    }
+
+    @Test
+    void equalDistributionMovesFreeWidgetsByTheSameAmount() {
+        Random r = new Random(2);
+        for (int trial = 0; trial < 2000; trial++) {
+            int n = 2 + r.nextInt(20);
+            double[][] row = row(r, n);
+            double target = r.nextDouble() * sum(row[2]) * 1.2;
+            double[] out = WidthSolver.solve(row[0], row[1], row[2], row[3], target);
+            double shift = Double.NaN;
+            for (int k = 0; k < n; k++) {
+                if (out[k] == row[0][k] || out[k] == row[2][k])
+                    continue; //saturated.
+                double d = out[k] - row[3][k];
+                if (Double.isNaN(shift))
+                    shift = d;
+                assertEquals(shift, d, EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void scratchOverloadMatchesAllocatingOverload() {
+        Random r = new Random(3);
+        for (Distribution distribution : Distribution.values()) {
+            for (int trial = 0; trial < 500; trial++) {
+                int n = 1 + r.nextInt(30), from = r.nextInt(n), to = from + r.nextInt(n - from + 1);
+                double[][] row = row(r, n);
+                double target = r.nextDouble() * sum(row[2]);
+                double[] expected = new double[n], actual = new double[n];
+                WidthSolver.solve(row[0], row[1], row[2], row[3], target, from, to, expected, distribution);
+                WidthSolver.solve(row[0], row[1], row[2], row[3], target, from, to, actual, distribution,
+                        new double[n], new double[n]);
+                assertArrayEquals(expected, actual, distribution + " from " + from + " to " + to);
+            }
+        }
+    }
+
+    @Test
+    void rowsOutsideTheMinAndMaxTotalsClip() {
+        double[] min = {10, 20, 30}, pref = {20, 30, 40}, max = {30, 40, 50};
+        assertArrayEquals(min, WidthSolver.solve(min, pref, max, null, 0));
+        assertArrayEquals(max, WidthSolver.solve(min, pref, max, null, 1000));
+        assertArrayEquals(pref, WidthSolver.solve(min, pref, max, null, 90));
+    }
+}
@@ -0,0 +1,107 @@
+package Utility;
+
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that ColorTransitions ends transitions on their end colors and that frames allocate nothing. Frames are run by calling frame() with made up times, on the JavaFX thread, while the timer also runs.
+ * The toolkit is started once, headless runs need a platform like Monocle.
+ */
+class ColorTransitionsTest {
+
+    private static final long FRAME = 16_000_000L; //nanoseconds.
+    private static final int TRANSITIONS = 20;
+
+    @BeforeAll
+    static void startToolkit() {
+        try {
+            Platform.startup(() -> {});
+        } catch (IllegalStateException alreadyStarted) {
+            //another test started it.
+        }
+    }
+
+    private static void onFxThread(Runnable test) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                test.run();
+                done.complete(null);
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+        });
+        done.get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Remembers the colors given without allocating.
+     */
+    private static final class Recorder implements ColorTransitions.Target {
+        final Color[] last = new Color[TRANSITIONS];
+        int calls;
+
+        @Override
+        public void colorChanged(int id, Color c) {
+            last[id] = c;
+            calls++;
+        }
+    }
+
+    private static ColorTransitions transitions(Recorder recorder) {
+        Group owner = new Group();
+        new Scene(owner);
+        return new ColorTransitions(owner, recorder);
+    }
+
+    /**
+     * Starts every transition and runs frames until they end.
+     */
+    private static void run(ColorTransitions transitions, long from) {
+        for (int id = 0; id < TRANSITIONS; id++)
+            transitions.start(id, id % 2 == 0 ? Color.RED : Color.WHITE, Color.color(0, 0, 1, id / (double) TRANSITIONS));
+        for (long now = from; transitions.getActiveCount() > 0; now += FRAME)
+            transitions.frame(now);
+    }
+
+    @Test
+    void framesDoNotAllocate() throws Exception {
+        onFxThread(() -> {
+            Recorder recorder = new Recorder();
+            ColorTransitions transitions = transitions(recorder);
+            long now = 0;
+            for (int warmup = 0; warmup < 200; warmup++, now += 1_000_000_000L)
+                run(transitions, now);
+            for (int id = 0; id < TRANSITIONS; id++)
+                transitions.start(id, Color.RED, Color.BLUE);
+            recorder.calls = 0;
+            long allocated = PaneStats.threadAllocatedBytes();
+            for (long t = now; transitions.getActiveCount() > 0; t += FRAME)
+                transitions.frame(t);
+            allocated = PaneStats.threadAllocatedBytes() - allocated;
+            assertTrue(recorder.calls > TRANSITIONS, "the transitions did not step");
+            assertEquals(0, allocated, "bytes allocated by the frames");
+        });
+    }
+
+    @Test
+    void transitionsEndOnTheirEndColor() throws Exception {
+        onFxThread(() -> {
+            Recorder recorder = new Recorder();
+            ColorTransitions transitions = transitions(recorder);
+            run(transitions, 0);
+            for (int id = 0; id < TRANSITIONS; id++)
+                assertEquals(Color.color(0, 0, 1, id / (double) TRANSITIONS), recorder.last[id], "transition " + id);
+            assertEquals(TRANSITIONS, transitions.getCompletedCount());
+        });
+    }
+}
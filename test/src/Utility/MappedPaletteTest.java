@@ -0,0 +1,93 @@
+package Utility;
+
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a palette written by MappedPalette.write() reads back with the same colors under the same names, in
+ * name order, and that files which are not palettes are rejected.
+ */
+class MappedPaletteTest {
+
+    @TempDir
+    Path dir;
+
+    private static final List<String> NAMES = Arrays.asList("teal", "Red", "blue", "blue green", "ÉCRU", "a", "b");
+    private static final int[] ARGB = {0xFF008080, 0xFFFF0000, 0xFF0000FF, 0x800D98BA, 0xFFC2B280, 0x00000000,
+            0xFFFFFFFF};
+
+    private MappedPalette written() throws IOException {
+        Path file = dir.resolve("palette.pal");
+        MappedPalette.write(file, NAMES, ARGB);
+        return MappedPalette.open(file);
+    }
+
+    @Test
+    void roundTripsNamesAndColors() throws IOException {
+        MappedPalette palette = written();
+        assertEquals(NAMES.size(), palette.size());
+        for (int i = 0; i < NAMES.size(); i++) {
+            int index = palette.indexOf(NAMES.get(i));
+            assertTrue(index >= 0, NAMES.get(i));
+            assertEquals(NAMES.get(i), palette.getName(index));
+            assertEquals(ARGB[i], palette.getArgb(index), NAMES.get(i));
+            assertEquals(ARGB[i], ColorUtility.toArgb(palette.getColor(index)), NAMES.get(i));
+        }
+        assertEquals(-1, palette.indexOf("green"));
+    }
+
+    @Test
+    void namesAreSortedByTheirBytes() throws IOException {
+        MappedPalette palette = written();
+        List<String> sorted = new ArrayList<>(NAMES);
+        sorted.sort((x, y) -> Arrays.compareUnsigned(x.getBytes(StandardCharsets.UTF_8),
+                y.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(sorted, palette.getColorNameList());
+        List<Color> colors = palette.getColorList();
+        for (int i = 0; i < colors.size(); i++)
+            assertEquals(palette.getColor(i), colors.get(i));
+    }
+
+    @Test
+    void findsNamesByPrefix() throws IOException {
+        MappedPalette palette = written();
+        assertEquals(Arrays.asList("blue", "blue green"), palette.getNamesStartingWith("blue"));
+        assertEquals(palette.indexOf("blue"), palette.indexOfPrefix("bl"));
+        assertEquals(-1, palette.indexOfPrefix("z"));
+        assertTrue(palette.getNamesStartingWith("z").isEmpty());
+    }
+
+    @Test
+    void rejectsDuplicateNames() {
+        Path file = dir.resolve("duplicates.pal");
+        assertThrows(IllegalArgumentException.class,
+                () -> MappedPalette.write(file, Arrays.asList("red", "red"), new int[] {0xFFFF0000, 0xFFFF0000}));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotPalettes() throws IOException {
+        Path file = dir.resolve("not.pal");
+        Files.write(file, "name,color\nred,#ff0000\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> MappedPalette.open(file));
+    }
+
+    @Test
+    void rejectsTruncatedPalettes() throws IOException {
+        Path file = dir.resolve("palette.pal");
+        MappedPalette.write(file, NAMES, ARGB);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IllegalArgumentException.class, () -> MappedPalette.open(file));
+    }
+}